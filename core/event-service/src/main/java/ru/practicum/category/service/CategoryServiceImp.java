@@ -10,6 +10,7 @@ import ru.practicum.category.model.dto.CategoryRequest;
 import ru.practicum.category.model.mapper.CategoryMapper;
 import ru.practicum.category.repository.CategoryRepository;
 import ru.practicum.event.repository.EventRepository;
+import ru.practicum.event.service.EventSearchIndexer;
 import ru.practicum.exception.ConflictException;
 import ru.practicum.exception.ConstraintException;
 import ru.practicum.exception.NotFoundException;
@@ -23,6 +24,7 @@ public class CategoryServiceImp implements CategoryService {
 
     private final CategoryRepository repository;
     private final EventRepository eventRepository;
+    private final EventSearchIndexer eventSearchIndexer;
     private final String errorMessageNotFound = "Category with id = %d was not found";
     private final String errorMessageAlreadyExist = "Category with name = %s is already exists";
 
@@ -61,7 +63,9 @@ public class CategoryServiceImp implements CategoryService {
             throw new ConflictException(String.format(errorMessageAlreadyExist, categoryRequest.getName()));
         }
         category.setName(categoryRequest.getName());
-        return CategoryMapper.toCategoryDto(repository.save(category));
+        Category updated = repository.save(category);
+        eventSearchIndexer.renameCategory(categoryId, updated.getName());
+        return CategoryMapper.toCategoryDto(updated);
     }
 
     @Override
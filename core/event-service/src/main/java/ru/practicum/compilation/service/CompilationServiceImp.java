@@ -15,12 +15,11 @@ import ru.practicum.compilation.model.dto.UpdateCompilationRequest;
 import ru.practicum.compilation.repository.CompilationRepository;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.service.EventService;
+import ru.practicum.event.service.UserShortCache;
 import ru.practicum.client.StatsClient;
 import ru.practicum.exception.BadParameterException;
 import ru.practicum.exception.DataConflictException;
 import ru.practicum.exception.NotFoundException;
-import ru.practicum.client.UserClient;
-import ru.practicum.user.model.dto.UserRequest;
 import ru.practicum.user.model.dto.UserShortDto;
 
 import java.util.*;
@@ -33,7 +32,7 @@ public class CompilationServiceImp implements CompilationService {
     private final EventService eventService;
     private final CompilationRepository compilationRepository;
     private final StatsClient statsClient;
-    private final UserClient userClient;
+    private final UserShortCache userShortCache;
 
     @Override
     public CompilationDto create(NewCompilationDto newCompilationDto) {
@@ -179,39 +178,12 @@ public class CompilationServiceImp implements CompilationService {
         if (userIds == null || userIds.isEmpty()) {
             return Map.of();
         }
-        Map<Long, UserShortDto> result = new HashMap<>();
-        try {
-            List<UserRequest> users = userClient.getByIds(new ArrayList<>(userIds));
-            if (users != null) {
-                for (UserRequest user : users) {
-                    UserShortDto dto = new UserShortDto();
-                    dto.setId(user.getId());
-                    dto.setName(user.getName());
-                    result.put(user.getId(), dto);
-                }
-            }
-        } catch (RuntimeException ex) {
-            result.clear();
-        }
+        Map<Long, UserShortDto> result = userShortCache.getAll(userIds);
         for (Long userId : userIds) {
-            result.computeIfAbsent(userId, this::getUserShort);
+            if (!result.containsKey(userId)) {
+                throw new NotFoundException(String.format("User with id=%d not found", userId));
+            }
         }
         return result;
     }
-
-    private UserShortDto getUserShort(long userId) {
-        UserRequest userRequest;
-        try {
-            userRequest = userClient.getById(userId);
-        } catch (RuntimeException ex) {
-            userRequest = null;
-        }
-        if (userRequest == null) {
-            throw new NotFoundException(String.format("User with id=%d not found", userId));
-        }
-        UserShortDto dto = new UserShortDto();
-        dto.setId(userRequest.getId());
-        dto.setName(userRequest.getName());
-        return dto;
-    }
 }
\ No newline at end of file
@@ -6,12 +6,14 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "ru.practicum")
 @EntityScan(basePackages = "ru.practicum")
 @EnableJpaRepositories(basePackages = "ru.practicum")
 @EnableDiscoveryClient
 @EnableFeignClients(basePackages = "ru.practicum.client")
+@EnableScheduling
 public class EventServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(EventServiceApplication.class, args);
@@ -1,6 +1,7 @@
 package ru.practicum.event.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
@@ -34,9 +35,15 @@ public class EventControllerPublic {
                                          @RequestParam(name = "rangeEnd", required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeEnd,
                                          @RequestParam(name = "onlyAvailable", required = false) Boolean onlyAvailable,
                                          @RequestParam(name = "sort", required = false) String sort,
+                                         @RequestParam(name = "lat", required = false) Double lat,
+                                         @RequestParam(name = "lon", required = false) Double lon,
+                                         @RequestParam(name = "radius", required = false) Double radius,
+                                         @RequestParam(name = "bbox", required = false) List<Double> bbox,
                                          @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero int from,
                                          @RequestParam(name = "size", defaultValue = "10") @Positive int size,
-                                         HttpServletRequest request)  {
+                                         @RequestParam(name = "cursor", required = false) String cursor,
+                                         HttpServletRequest request,
+                                         HttpServletResponse response)  {
         EventParam p = EventParam.builder()
                 .text(text)
                 .categories(categories)
@@ -45,9 +52,15 @@ public class EventControllerPublic {
                 .rangeEnd(rangeEnd)
                 .onlyAvailable(onlyAvailable)
                 .sort(sort)
+                .lat(lat)
+                .lon(lon)
+                .radius(radius)
+                .bbox(bbox)
                 .from(from)
                 .size(size)
+                .cursor(cursor)
                 .request(request)
+                .response(response)
                 .build();
 
         log.info("Выполнен запрос получения всех событий");
@@ -56,8 +69,9 @@ public class EventControllerPublic {
 
     @GetMapping(EVENT_ID_PATH)
     public EventFullDto getEvent(@PathVariable(name = "eventId")  @Positive int eventId,
-                                                 HttpServletRequest request) {
+                                                 HttpServletRequest request,
+                                                 HttpServletResponse response) {
         log.info("Выполнен запрос получения события с id={}", eventId);
-        return eventService.getEvent(eventId, request);
+        return eventService.getEvent(eventId, request, response);
     }
 }
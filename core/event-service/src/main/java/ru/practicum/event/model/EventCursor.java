@@ -0,0 +1,54 @@
+package ru.practicum.event.model;
+
+import jakarta.validation.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Курсор постраничного публичного поиска: ключ сортировки и id последнего события страницы.
+ * Следующая страница начинается строго после этой пары, без OFFSET.
+ */
+public record EventCursor(String sortKey, long id) {
+    private static final char SEPARATOR = '_';
+
+    public static EventCursor of(LocalDateTime eventDate, long id) {
+        return new EventCursor(eventDate.toString(), id);
+    }
+
+    public static EventCursor of(long views, long id) {
+        return new EventCursor(Long.toString(views), id);
+    }
+
+    public static EventCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new EventCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ValidationException("Некорректный курсор: " + value);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sortKey + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime eventDate() {
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (RuntimeException e) {
+            throw new ValidationException("Курсор не соответствует сортировке EVENT_DATE");
+        }
+    }
+
+    public long views() {
+        try {
+            return Long.parseLong(sortKey);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Курсор не соответствует сортировке VIEWS");
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.event.model;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -27,12 +28,19 @@ public class EventParam {
     Boolean onlyAvailable;
     String sort;
 
+    Double lat;
+    Double lon;
+    Double radius;
+    List<Double> bbox;
+
     List<Long> users;
     List<String> states;
 
     Integer from;
     Integer size;
+    String cursor;
 
     String requestUri;
     HttpServletRequest request;
+    HttpServletResponse response;
 }
@@ -0,0 +1,70 @@
+package ru.practicum.event.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка читаемой модели публичного поиска: опубликованное событие вместе с названием категории, именем инициатора
+ * и просмотрами, чтобы поиск обходился одним запросом к event_search без обращений к другим сервисам.
+ * Ведёт EventSearchIndexer.
+ */
+@Getter
+@Setter
+@Entity
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(name = "event_search", schema = "public")
+public class EventSearch {
+    @Id
+    @Column(name = "event_id")
+    long id;
+
+    @Column(name = "annotation")
+    String annotation;
+
+    @Column(name = "category_id")
+    Long categoryId;
+
+    @Column(name = "category_name")
+    String categoryName;
+
+    @Column(name = "confirmed_requests")
+    int confirmedRequests;
+
+    /* только для полнотекстового поиска, в ответ не выбирается */
+    @Column(name = "description")
+    String description;
+
+    @Column(name = "event_date")
+    LocalDateTime eventDate;
+
+    @Column(name = "initiator_id")
+    long initiatorId;
+
+    /* null, пока user-service не вернул пользователя */
+    @Column(name = "initiator_name")
+    String initiatorName;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "lat", column = @Column(name = "location_lat")),
+            @AttributeOverride(name = "lon", column = @Column(name = "location_lon"))})
+    Location location;
+
+    @Column(name = "paid")
+    boolean paid;
+
+    @Column(name = "participant_limit")
+    int participantLimit;
+
+    @Column(name = "title")
+    String title;
+
+    /* просмотры из сервиса статистики, обновляются EventSearchSynchronizer */
+    @Column(name = "views")
+    long views;
+}
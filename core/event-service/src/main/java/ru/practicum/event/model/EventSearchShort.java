@@ -0,0 +1,20 @@
+package ru.practicum.event.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция строки event_search для публичного поиска: всё, что нужно EventShortDto, включая имя инициатора
+ * и просмотры, без description.
+ */
+public record EventSearchShort(long id,
+                               String annotation,
+                               Long categoryId,
+                               String categoryName,
+                               int confirmedRequests,
+                               LocalDateTime eventDate,
+                               long initiatorId,
+                               String initiatorName,
+                               boolean paid,
+                               String title,
+                               long views) {
+}
@@ -0,0 +1,23 @@
+package ru.practicum.event.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция события для списков: только поля EventShortDto и категория из того же запроса, без description
+ * и без отдельного select категории на каждое событие.
+ */
+public record EventShort(long id,
+                         String annotation,
+                         Long categoryId,
+                         String categoryName,
+                         int confirmedRequests,
+                         LocalDateTime eventDate,
+                         long initiatorId,
+                         boolean paid,
+                         String title) {
+    /**
+     * Конструкторное выражение JPQL для выборки EventShort из Event AS e JOIN e.category AS c.
+     */
+    public static final String SELECT = "SELECT new ru.practicum.event.model.EventShort(e.id, e.annotation, " +
+            "c.id, c.name, e.confirmedRequests, e.eventDate, e.initiatorId, e.paid, e.title) ";
+}
@@ -0,0 +1,69 @@
+package ru.practicum.event.model;
+
+import jakarta.validation.ValidationException;
+
+import java.util.List;
+
+/**
+ * Прямоугольник на карте в градусах; предварительный фильтр гео-поиска по индексу ix_event_search_location.
+ */
+public record GeoBox(double minLon, double minLat, double maxLon, double maxLat) {
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    /**
+     * Прямоугольники, покрывающие круг радиусом radiusKm вокруг точки; круг через антимеридиан режется на два.
+     */
+    public static List<GeoBox> around(double lat, double lon, double radiusKm) {
+        validatePoint(lat, lon);
+        if (radiusKm <= 0) {
+            throw new ValidationException("Радиус поиска должен быть больше нуля");
+        }
+        double deltaLat = radiusKm / KM_PER_DEGREE;
+        double minLat = lat - deltaLat;
+        double maxLat = lat + deltaLat;
+        if (minLat <= -90 || maxLat >= 90) {
+            /* круг захватывает полюс: подходят все долготы */
+            return List.of(new GeoBox(-180, Math.max(minLat, -90), 180, Math.min(maxLat, 90)));
+        }
+        double deltaLon = Math.toDegrees(Math.asin(Math.min(1, Math.sin(radiusKm / EARTH_RADIUS_KM)
+                / Math.cos(Math.toRadians(lat)))));
+        double minLon = lon - deltaLon;
+        double maxLon = lon + deltaLon;
+        if (minLon < -180) {
+            return List.of(new GeoBox(minLon + 360, minLat, 180, maxLat), new GeoBox(-180, minLat, maxLon, maxLat));
+        }
+        if (maxLon > 180) {
+            return List.of(new GeoBox(minLon, minLat, 180, maxLat), new GeoBox(-180, minLat, maxLon - 360, maxLat));
+        }
+        return List.of(new GeoBox(minLon, minLat, maxLon, maxLat));
+    }
+
+    /**
+     * Прямоугольник из параметра bbox=minLon,minLat,maxLon,maxLat; при minLon > maxLon он пересекает антимеридиан.
+     */
+    public static List<GeoBox> of(List<Double> bbox) {
+        if (bbox.size() != 4) {
+            throw new ValidationException("bbox задаётся четырьмя числами: minLon,minLat,maxLon,maxLat");
+        }
+        double minLon = bbox.get(0);
+        double minLat = bbox.get(1);
+        double maxLon = bbox.get(2);
+        double maxLat = bbox.get(3);
+        validatePoint(minLat, minLon);
+        validatePoint(maxLat, maxLon);
+        if (minLat > maxLat) {
+            throw new ValidationException("В bbox minLat не может быть больше maxLat");
+        }
+        if (minLon > maxLon) {
+            return List.of(new GeoBox(minLon, minLat, 180, maxLat), new GeoBox(-180, minLat, maxLon, maxLat));
+        }
+        return List.of(new GeoBox(minLon, minLat, maxLon, maxLat));
+    }
+
+    private static void validatePoint(double lat, double lon) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new ValidationException("Координаты вне допустимого диапазона: широта -90..90, долгота -180..180");
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package ru.practicum.event.model.mapper;
 
 import ru.practicum.category.model.Category;
+import ru.practicum.category.model.dto.CategoryDto;
 import ru.practicum.category.model.mapper.CategoryMapper;
 import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventSearchShort;
+import ru.practicum.event.model.EventShort;
 import ru.practicum.event.model.dto.EventFullDto;
 import ru.practicum.event.model.dto.EventParticipationInfoDto;
 import ru.practicum.event.model.dto.EventShortDto;
@@ -79,6 +82,47 @@ public class EventMapper {
         return shortDto;
     }
 
+    public static EventShortDto toShortDto(EventSearchShort event) {
+        EventShortDto shortDto = new EventShortDto();
+        CategoryDto categoryDto = new CategoryDto();
+        categoryDto.setId(event.categoryId());
+        categoryDto.setName(event.categoryName());
+        UserShortDto initiator = new UserShortDto();
+        initiator.setId(event.initiatorId());
+        initiator.setName(event.initiatorName());
+
+        shortDto.setId(event.id());
+        shortDto.setAnnotation(event.annotation());
+        shortDto.setCategory(categoryDto);
+        shortDto.setConfirmedRequests(event.confirmedRequests());
+        shortDto.setEventDate(event.eventDate().format(TIME_FORMAT));
+        shortDto.setInitiator(initiator);
+        shortDto.setPaid(event.paid());
+        shortDto.setTitle(event.title());
+        shortDto.setViews(event.views());
+
+        return shortDto;
+    }
+
+    public static EventShortDto toShortDto(EventShort event, UserShortDto initiator, long views) {
+        EventShortDto shortDto = new EventShortDto();
+        CategoryDto categoryDto = new CategoryDto();
+        categoryDto.setId(event.categoryId());
+        categoryDto.setName(event.categoryName());
+
+        shortDto.setId(event.id());
+        shortDto.setAnnotation(event.annotation());
+        shortDto.setCategory(categoryDto);
+        shortDto.setConfirmedRequests(event.confirmedRequests());
+        shortDto.setEventDate(event.eventDate().format(TIME_FORMAT));
+        shortDto.setInitiator(initiator);
+        shortDto.setPaid(event.paid());
+        shortDto.setTitle(event.title());
+        shortDto.setViews(views);
+
+        return shortDto;
+    }
+
 
     public static EventFullDto toFullDto(Event event, UserShortDto initiator, long views) {
         EventFullDto eventFullDto = new EventFullDto();
@@ -5,21 +5,24 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.category.model.Category;
 import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventShort;
 
 import java.util.List;
 import java.util.Set;
 
 public interface EventRepository extends JpaRepository<Event, Long> {
-    @Query("SELECT e " +
+    @Query(EventShort.SELECT +
             "FROM Event AS e " +
-            "WHERE e.category.id = ?1")
-    List<Event> findByCategoryId(long catId);
+            "JOIN e.category AS c " +
+            "WHERE c.id = ?1")
+    List<EventShort> findByCategoryId(long catId);
 
 
-    @Query("SELECT e " +
-            "FROM Event as e " +
-            "WHERE initiatorId = ?1")
-    List<Event> getAllByUser(long userId, PageRequest page);
+    @Query(EventShort.SELECT +
+            "FROM Event AS e " +
+            "JOIN e.category AS c " +
+            "WHERE e.initiatorId = ?1")
+    List<EventShort> getAllByUser(long userId, PageRequest page);
 
     @Query("SELECT e " +
             "FROM Event as e " +
@@ -0,0 +1,56 @@
+package ru.practicum.event.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+import ru.practicum.event.model.GeoBox;
+
+/**
+ * Функции поиска событий для criteria-запросов.
+ * <ul>
+ *   <li>{@value #MATCH}, {@value #RANK}(title, annotation, description, строка) — полнотекстовый поиск; на Postgres
+ *   опираются на event_search_vector/event_search_query из schema-postgresql.sql и GIN-индекс ix_event_search_text,
+ *   на прочих базах (H2 в профиле test) сводятся к прежнему поиску подстроки без ранжирования;</li>
+ *   <li>{@value #IN_BOX}(lon, lat, minLon, minLat, maxLon, maxLat) — точка в прямоугольнике, на Postgres
+ *   по GiST-индексу ix_event_search_location;</li>
+ *   <li>{@value #DISTANCE}(lat, lon, lat центра, lon центра) — расстояние по большому кругу в километрах.</li>
+ * </ul>
+ */
+public class EventSearchFunctions implements FunctionContributor {
+    public static final String MATCH = "event_text_match";
+    public static final String RANK = "event_text_rank";
+    public static final String IN_BOX = "event_in_box";
+    public static final String DISTANCE = "event_distance_km";
+    /* гаверсинус; least страхует asin от аргумента чуть больше единицы из-за округления */
+    private static final String HAVERSINE = "(2 * " + GeoBox.EARTH_RADIUS_KM + " * asin(least(1, sqrt("
+            + "power(sin(radians(?1 - ?3) / 2), 2) "
+            + "+ cos(radians(?3)) * cos(radians(?1)) * power(sin(radians(?2 - ?4) / 2), 2)))))";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Float> floatType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.FLOAT);
+        BasicType<Double> doubleType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.DOUBLE);
+        functionContributions.getFunctionRegistry().registerPattern(DISTANCE, HAVERSINE, doubleType);
+        if (functionContributions.getDialect() instanceof PostgreSQLDialect) {
+            functionContributions.getFunctionRegistry().registerPattern(MATCH,
+                    "(event_search_vector(?1, ?2, ?3) @@ event_search_query(?4))", booleanType);
+            functionContributions.getFunctionRegistry().registerPattern(RANK,
+                    "ts_rank(event_search_vector(?1, ?2, ?3), event_search_query(?4))", floatType);
+            functionContributions.getFunctionRegistry().registerPattern(IN_BOX,
+                    "(point(?1, ?2) <@ box(point(?3, ?4), point(?5, ?6)))", booleanType);
+        } else {
+            functionContributions.getFunctionRegistry().registerPattern(MATCH,
+                    "(lower(?2) like concat('%', lower(?4), '%') or lower(?3) like concat('%', lower(?4), '%'))",
+                    booleanType);
+            functionContributions.getFunctionRegistry().registerPattern(RANK, "(0 * length(?4))", floatType);
+            functionContributions.getFunctionRegistry().registerPattern(IN_BOX,
+                    "(?1 between ?3 and ?5 and ?2 between ?4 and ?6)", booleanType);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.event.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.event.model.EventSearch;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface EventSearchRepository extends JpaRepository<EventSearch, Long> {
+    @Query("SELECT s.id " +
+            "FROM EventSearch AS s " +
+            "WHERE s.id > ?1 " +
+            "ORDER BY s.id")
+    List<Long> findIdsAfter(long afterId, Pageable page);
+
+    @Query("SELECT DISTINCT s.initiatorId " +
+            "FROM EventSearch AS s " +
+            "WHERE s.id IN ?1")
+    List<Long> findInitiatorIds(Collection<Long> eventIds);
+
+    /**
+     * Просмотры пачки событий одним запросом: ids[i] получает views[i], совпадающие строки не переписываются.
+     * MERGE вместо UPDATE ... FROM, потому что его понимают и Postgres, и H2.
+     */
+    @Modifying
+    @Query(value = "MERGE INTO event_search AS s " +
+            "USING unnest(CAST(?1 AS BIGINT ARRAY), CAST(?2 AS BIGINT ARRAY)) AS v(event_id, views) " +
+            "ON s.event_id = v.event_id " +
+            "WHEN MATCHED AND s.views <> v.views THEN UPDATE SET views = v.views", nativeQuery = true)
+    int updateViews(Long[] eventIds, Long[] views);
+
+    @Modifying
+    @Query("UPDATE EventSearch AS s " +
+            "SET s.initiatorName = ?2 " +
+            "WHERE s.initiatorId = ?1 " +
+            "AND (s.initiatorName IS NULL OR s.initiatorName <> ?2)")
+    int updateInitiatorName(long initiatorId, String initiatorName);
+
+    @Modifying
+    @Query("UPDATE EventSearch AS s " +
+            "SET s.categoryName = ?2 " +
+            "WHERE s.categoryId = ?1")
+    int updateCategoryName(long categoryId, String categoryName);
+}
@@ -0,0 +1,105 @@
+package ru.practicum.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.AsyncStatsClient;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventShort;
+import ru.practicum.user.model.dto.UserShortDto;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Данные для списков событий из других сервисов: инициаторы из user-service и просмотры из stats-server
+ * запрашиваются одновременно, так что список ждёт самую медленную зависимость, а не сумму обеих.
+ * У каждой зависимости свой таймаут; не успевшая или упавшая отдаёт частичный результат: инициатор только с id,
+ * нулевые просмотры. Загрузка, прерванная таймаутом, продолжается и пополняет кэши для следующих запросов.
+ */
+@Slf4j
+@Component
+public class EventEnricher {
+    private final UserShortCache userShortCache;
+    private final AsyncStatsClient asyncStatsClient;
+    private final Duration usersTimeout;
+    private final Duration viewsTimeout;
+
+    public EventEnricher(UserShortCache userShortCache,
+                         AsyncStatsClient asyncStatsClient,
+                         @Value("${event.enrichment.users-timeout:2s}") Duration usersTimeout,
+                         @Value("${event.enrichment.views-timeout:2s}") Duration viewsTimeout) {
+        this.userShortCache = userShortCache;
+        this.asyncStatsClient = asyncStatsClient;
+        this.usersTimeout = usersTimeout;
+        this.viewsTimeout = viewsTimeout;
+    }
+
+    public Enrichment enrich(Collection<Event> events) {
+        return enrich(events.stream().map(Event::getInitiatorId).collect(Collectors.toSet()),
+                events.stream().map(Event::getId).collect(Collectors.toList()));
+    }
+
+    public Enrichment enrichShort(Collection<EventShort> events) {
+        return enrich(events.stream().map(EventShort::initiatorId).collect(Collectors.toSet()),
+                events.stream().map(EventShort::id).collect(Collectors.toList()));
+    }
+
+    private Enrichment enrich(Set<Long> initiatorIds, List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return new Enrichment(Map.of(), Map.of());
+        }
+        CompletableFuture<Map<Long, UserShortDto>> initiators = userShortCache.getAllAsync(initiatorIds)
+                .completeOnTimeout(null, usersTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        CompletableFuture<Map<Long, Long>> views = asyncStatsClient.getMapIdViews(eventIds)
+                .exceptionally(e -> null)
+                .completeOnTimeout(null, viewsTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        Map<Long, UserShortDto> loadedInitiators = initiators.join();
+        Map<Long, Long> loadedViews = views.join();
+        if (loadedInitiators == null) {
+            log.warn("user-service не ответил за {}, инициаторы событий отданы без имён", usersTimeout);
+        }
+        if (loadedViews == null) {
+            log.warn("stats-server не ответил за {}, просмотры событий отданы нулевыми", viewsTimeout);
+        }
+        return new Enrichment(loadedInitiators != null ? loadedInitiators : new HashMap<>(),
+                loadedViews != null ? loadedViews : new HashMap<>());
+    }
+
+    public record Enrichment(Map<Long, UserShortDto> initiators, Map<Long, Long> views) {
+        /**
+         * Инициатор события; если user-service его не вернул — только с id.
+         */
+        public UserShortDto initiator(Event event) {
+            return initiator(event.getInitiatorId());
+        }
+
+        public UserShortDto initiator(EventShort event) {
+            return initiator(event.initiatorId());
+        }
+
+        public long views(Event event) {
+            return views.getOrDefault(event.getId(), 0L);
+        }
+
+        public long views(EventShort event) {
+            return views.getOrDefault(event.id(), 0L);
+        }
+
+        private UserShortDto initiator(long initiatorId) {
+            UserShortDto initiator = initiators.get(initiatorId);
+            if (initiator == null) {
+                initiator = new UserShortDto();
+                initiator.setId(initiatorId);
+            }
+            return initiator;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import ru.practicum.exception.NotFoundException;
 @RequiredArgsConstructor
 public class EventInternalServiceImpl implements EventInternalService {
     private final EventRepository eventRepository;
+    private final EventSearchIndexer eventSearchIndexer;
 
     @Transactional(readOnly = true)
     @Override
@@ -29,6 +30,7 @@ public class EventInternalServiceImpl implements EventInternalService {
                 .orElseThrow(() -> new NotFoundException(String.format("Событие с id=%d не найдено", eventId)));
         event.setConfirmedRequests(event.getConfirmedRequests() + delta);
         eventRepository.save(event);
+        eventSearchIndexer.index(event);
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,192 @@
+package ru.practicum.event.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.practicum.event.model.EventParam;
+import ru.practicum.event.model.dto.EventFullDto;
+import ru.practicum.event.model.dto.EventShortDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Кэш готовых ответов публичных GET /events и GET /events/{id} с коротким TTL. Ключ списка — нормализованный
+ * EventParam, одновременные одинаковые промахи ждут одно вычисление. Публикация и изменение события сбрасывают
+ * его карточку и все списки после коммита. У каждого ответа есть ETag для условных запросов (If-None-Match → 304).
+ * Метрики — event.response.cache.*.
+ */
+@Slf4j
+@Component
+public class EventResponseCache {
+    private final ObjectMapper objectMapper;
+    private final AsyncCache<ListingKey, Entry<List<EventShortDto>>> listings;
+    private final AsyncCache<Long, Entry<EventFullDto>> events;
+
+    public EventResponseCache(ObjectMapper objectMapper,
+                              @Value("${event.response-cache.ttl:5s}") Duration ttl,
+                              @Value("${event.response-cache.max-size:1000}") long maxSize,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.listings = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .buildAsync();
+        this.events = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .buildAsync();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, listings.synchronous(), "event.response.cache", "kind", "listing");
+            CaffeineCacheMetrics.monitor(registry, events.synchronous(), "event.response.cache", "kind", "event");
+        }
+    }
+
+    /**
+     * Страница публичного поиска; loader вызывается в потоке запроса (внутри его транзакции) только при промахе.
+     */
+    public Entry<List<EventShortDto>> getListing(EventParam p, Supplier<Page> loader) {
+        return get(listings, ListingKey.of(p), () -> {
+            Page page = loader.get();
+            return entry(page.events(), page.nextCursor());
+        });
+    }
+
+    /**
+     * Карточка опубликованного события; исключение loader (например, NotFoundException) не кэшируется.
+     */
+    public Entry<EventFullDto> getEvent(long eventId, Supplier<EventFullDto> loader) {
+        return get(events, eventId, () -> entry(loader.get(), null));
+    }
+
+    /**
+     * Сбрасывает карточку события и все списки: по фильтрам не понять, в какие страницы оно попадало.
+     * Внутри транзакции сброс откладывается до коммита, иначе параллельный запрос успел бы закэшировать старые данные.
+     */
+    public void evict(long eventId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(eventId);
+                }
+            });
+        } else {
+            evictNow(eventId);
+        }
+    }
+
+    /**
+     * Ставит ETag ответа и сверяет его с If-None-Match.
+     *
+     * @return true, если клиентская копия актуальна и ответ уже переведён в 304
+     */
+    public boolean notModified(Entry<?> entry, HttpServletRequest request, @Nullable HttpServletResponse response) {
+        return response != null && new ServletWebRequest(request, response).checkNotModified(entry.etag());
+    }
+
+    private void evictNow(long eventId) {
+        events.synchronous().invalidate(eventId);
+        listings.synchronous().invalidateAll();
+        log.debug("Кэш ответов сброшен после изменения события с id={}", eventId);
+    }
+
+    /**
+     * Вычисляет значение в текущем потоке: кэш держит незавершённый future, и параллельные запросы того же ключа
+     * ждут его, а не идут в базу сами. При ошибке загрузки future убирается из кэша, а ждущие получают то же
+     * исключение, что и загружавший запрос (например, NotFoundException → 404).
+     */
+    private static <K, V> Entry<V> get(AsyncCache<K, Entry<V>> cache, K key, Supplier<Entry<V>> loader) {
+        CompletableFuture<Entry<V>> computing = new CompletableFuture<>();
+        CompletableFuture<Entry<V>> cached = cache.asMap().putIfAbsent(key, computing);
+        if (cached != null) {
+            try {
+                return cached.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            Entry<V> entry = loader.get();
+            computing.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            cache.asMap().remove(key, computing);
+            computing.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private <V> Entry<V> entry(V body, @Nullable String nextCursor) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            String digest = DigestUtils.md5DigestAsHex(nextCursor == null ? json
+                    : concat(json, nextCursor.getBytes(StandardCharsets.UTF_8)));
+            return new Entry<>(body, nextCursor, "\"" + digest + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать ответ для ETag", e);
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Результат поиска до кэширования: события страницы и курсор следующей, если он есть.
+     */
+    public record Page(List<EventShortDto> events, @Nullable String nextCursor) {
+    }
+
+    public record Entry<V>(V body, @Nullable String nextCursor, String etag) {
+    }
+
+    /**
+     * Параметры, от которых зависит ответ. Регистр и пробелы по краям text, порядок и повторы categories,
+     * пустой cursor на результат не влияют и ключ не дробят.
+     */
+    private record ListingKey(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
+                              LocalDateTime rangeEnd, boolean onlyAvailable, String sort, Double lat, Double lon,
+                              Double radius, List<Double> bbox, Integer from, Integer size, String cursor) {
+        static ListingKey of(EventParam p) {
+            String text = p.getText() == null || p.getText().isBlank() ? null
+                    : p.getText().trim().toLowerCase(Locale.ROOT);
+            List<Long> categories = p.getCategories() == null || p.getCategories().isEmpty() ? null
+                    : p.getCategories().stream().distinct().sorted().toList();
+            List<Double> bbox = p.getBbox() == null || p.getBbox().isEmpty() ? null : List.copyOf(p.getBbox());
+            String cursor = p.getCursor() == null || p.getCursor().isBlank() ? null : p.getCursor();
+            return new ListingKey(text, categories, p.getPaid(), p.getRangeStart(), p.getRangeEnd(),
+                    Boolean.TRUE.equals(p.getOnlyAvailable()), p.getSort(), p.getLat(), p.getLon(), p.getRadius(),
+                    bbox, cursor == null ? p.getFrom() : null, p.getSize(), cursor);
+        }
+    }
+}
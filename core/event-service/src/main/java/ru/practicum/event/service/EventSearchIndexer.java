@@ -0,0 +1,64 @@
+package ru.practicum.event.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventSearch;
+import ru.practicum.event.model.EventState;
+import ru.practicum.event.model.Location;
+import ru.practicum.event.repository.EventSearchRepository;
+import ru.practicum.user.model.dto.UserShortDto;
+
+/**
+ * Ведёт читаемую модель event_search вместе с записью события: вызывается в той же транзакции, поэтому строка
+ * не расходится с events. Просмотры и имена инициаторов позже освежает EventSearchSynchronizer.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventSearchIndexer {
+    private final EventSearchRepository eventSearchRepository;
+    private final UserShortCache userShortCache;
+
+    /**
+     * Опубликованное событие добавляет или обновляет строку, любое другое — удаляет её.
+     */
+    @Transactional
+    public void index(Event event) {
+        if (event.getState() != EventState.PUBLISHED) {
+            eventSearchRepository.deleteById(event.getId());
+            return;
+        }
+        EventSearch row = eventSearchRepository.findById(event.getId()).orElseGet(() -> {
+            EventSearch created = new EventSearch();
+            created.setId(event.getId());
+            return created;
+        });
+        row.setAnnotation(event.getAnnotation());
+        row.setCategoryId(event.getCategory().getId());
+        row.setCategoryName(event.getCategory().getName());
+        row.setConfirmedRequests(event.getConfirmedRequests());
+        row.setDescription(event.getDescription());
+        row.setEventDate(event.getEventDate());
+        row.setInitiatorId(event.getInitiatorId());
+        Location location = new Location();
+        location.setLat(event.getLocation().getLat());
+        location.setLon(event.getLocation().getLon());
+        row.setLocation(location);
+        row.setPaid(event.isPaid());
+        row.setParticipantLimit(event.getParticipantLimit());
+        row.setTitle(event.getTitle());
+        if (row.getInitiatorName() == null) {
+            UserShortDto initiator = userShortCache.get(event.getInitiatorId());
+            if (initiator != null) {
+                row.setInitiatorName(initiator.getName());
+            }
+        }
+        eventSearchRepository.save(row);
+    }
+
+    @Transactional
+    public void renameCategory(long categoryId, String name) {
+        eventSearchRepository.updateCategoryName(categoryId, name);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.client.StatsClient;
+import ru.practicum.event.repository.EventSearchRepository;
+import ru.practicum.user.model.dto.UserShortDto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Освежает в читаемой модели event_search данные других сервисов: просмотры из сервиса статистики и имена
+ * инициаторов из user-service. Публичный поиск отстаёт от них не больше чем на event.search.sync-interval-ms.
+ */
+@Slf4j
+@Component
+public class EventSearchSynchronizer {
+    private final EventSearchRepository eventSearchRepository;
+    private final StatsClient statsClient;
+    private final UserShortCache userShortCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public EventSearchSynchronizer(EventSearchRepository eventSearchRepository,
+                                   StatsClient statsClient,
+                                   UserShortCache userShortCache,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${event.search.batch-size:500}") int batchSize) {
+        this.eventSearchRepository = eventSearchRepository;
+        this.statsClient = statsClient;
+        this.userShortCache = userShortCache;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Проходит строки пачками по id и обновляет только изменившиеся; просмотры пачки пишутся одним запросом.
+     * При отказе сервиса статистики просмотры пачки не трогаются: нули вместо просмотров перемешали бы порядок.
+     * Пользователь, которого user-service не вернул, сохраняет прежнее имя.
+     */
+    @Scheduled(fixedDelayString = "${event.search.sync-interval-ms:60000}",
+            initialDelayString = "${event.search.initial-delay-ms:10000}")
+    public void synchronize() {
+        long afterId = 0;
+        int updatedViews = 0;
+        int updatedNames = 0;
+        boolean statsAvailable = true;
+        while (true) {
+            List<Long> ids = eventSearchRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Map<Long, Long> views = statsAvailable ? statsClient.loadViews(ids) : null;
+            if (views == null && statsAvailable) {
+                log.warn("Сервис статистики недоступен, просмотры не обновлялись начиная с id > {}", afterId);
+                statsAvailable = false;
+            }
+            Map<Long, UserShortDto> initiators = userShortCache.getAll(eventSearchRepository.findInitiatorIds(ids));
+            int[] changed = transactionTemplate.execute(status -> new int[]{
+                    views == null ? 0 : eventSearchRepository.updateViews(ids.toArray(Long[]::new),
+                            ids.stream().map(id -> views.getOrDefault(id, 0L)).toArray(Long[]::new)),
+                    initiators.values().stream()
+                            .mapToInt(user -> eventSearchRepository.updateInitiatorName(user.getId(), user.getName()))
+                            .sum()});
+            if (changed != null) {
+                updatedViews += changed[0];
+                updatedNames += changed[1];
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        log.debug("Синхронизация event_search завершена, обновлено просмотров: {}, имён инициаторов: {}",
+                updatedViews, updatedNames);
+    }
+}
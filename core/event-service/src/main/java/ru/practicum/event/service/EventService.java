@@ -1,6 +1,7 @@
 package ru.practicum.event.service;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventParam;
@@ -16,7 +17,8 @@ public interface EventService {
     List<EventFullDto> getEventsAdmin(EventParam p);
 
     EventFullDto getEvent(int eventId,
-                          HttpServletRequest request);
+                          HttpServletRequest request,
+                          HttpServletResponse response);
 
     EventFullDto create(NewEventDto newEventDto, int userId);
 
@@ -4,22 +4,26 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.category.model.Category;
 import ru.practicum.category.model.dto.CategoryDto;
 import ru.practicum.category.model.mapper.CategoryMapper;
 import ru.practicum.category.service.CategoryService;
 import ru.practicum.event.model.*;
+import ru.practicum.client.AsyncStatsClient;
 import ru.practicum.client.StatsClient;
 import ru.practicum.dto.StatisticsPostResponseDto;
 import ru.practicum.event.model.dto.*;
 import ru.practicum.event.model.mapper.EventMapper;
 import ru.practicum.event.repository.EventRepository;
+import ru.practicum.event.repository.EventSearchFunctions;
 import ru.practicum.exception.BadParameterException;
 import ru.practicum.exception.CreateConditionException;
 import ru.practicum.exception.DataConflictException;
@@ -27,9 +31,7 @@ import ru.practicum.exception.NotFoundException;
 import ru.practicum.request.model.RequestStatus;
 import ru.practicum.request.model.dto.RequestDto;
 import ru.practicum.client.RequestClient;
-import ru.practicum.user.model.dto.UserRequest;
 import ru.practicum.user.model.dto.UserShortDto;
-import ru.practicum.client.UserClient;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import ru.practicum.exception.ConflictException;
@@ -40,6 +42,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static java.time.temporal.ChronoUnit.HOURS;
@@ -48,12 +51,18 @@ import static java.time.temporal.ChronoUnit.HOURS;
 @RequiredArgsConstructor
 public class EventServiceImpl implements EventService {
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     private final EventRepository eventJpaRepository;
     private final CategoryService categoryService;
-    private final UserClient userClient;
+    private final UserShortCache userShortCache;
+    private final EventEnricher eventEnricher;
+    private final EventResponseCache eventResponseCache;
+    private final EventSearchIndexer eventSearchIndexer;
+    private final TransactionTemplate transactionTemplate;
     private final RequestClient requestClient;
     private final EntityManager entityManager;
     private final StatsClient statsClient;
+    private final AsyncStatsClient asyncStatsClient;
 
 
     @Transactional
@@ -77,47 +86,27 @@ public class EventServiceImpl implements EventService {
     }
 
     private void validateUserExists(long userId) {
-        UserRequest userRequest = getUserFromService(userId);
-        if (userRequest == null) {
-            throw new NotFoundException(String.format("Пользователь с id=%d не найден", userId));
-        }
+        getUserShort(userId);
     }
 
     private User ensureUserExists(long userId) {
-        UserRequest userRequest = getUserFromService(userId);
-        if (userRequest == null) {
-            throw new NotFoundException(String.format("Пользователь с id=%d не найден", userId));
-        }
+        getUserShort(userId);
         return entityManager.getReference(User.class, userId);
     }
 
-    private UserRequest getUserFromService(long userId) {
-        try {
-            return userClient.getById(userId);
-        } catch (RuntimeException ex) {
-            return null;
-        }
-    }
-
 
     public List<EventShortDto> getEventsByCategory(int catId) {
         if (catId <= 0) {
             throw new BadParameterException("Id категории должен быть >0");
         }
-        List<Event> events = eventJpaRepository.findByCategoryId(catId);
+        List<EventShort> events = eventJpaRepository.findByCategoryId(catId);
         if (events.isEmpty()) {
             return new ArrayList<>();
         }
-        Map<Long, UserShortDto> initiators = getUserShorts(events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet()));
-        Map<Long, Long> idViewsMap = statsClient.getMapIdViews(events.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList()));
+        EventEnricher.Enrichment enrichment = eventEnricher.enrichShort(events);
 
         return events.stream()
-                .map(e -> EventMapper.toShortDto(e, initiators.get(e.getInitiatorId()),
-                        idViewsMap.getOrDefault(e.getId(), 0L)))
+                .map(e -> EventMapper.toShortDto(e, enrichment.initiator(e), enrichment.views(e)))
                 .collect(Collectors.toList());
     }
 
@@ -126,56 +115,68 @@ public class EventServiceImpl implements EventService {
         validateUserExists(userId);
         PageRequest page = PageRequest.of(from / size, size, Sort.by("id").ascending());
 
-        List<Event> events = eventJpaRepository.getAllByUser(userId, page);
-        Map<Long, UserShortDto> initiators = getUserShorts(events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet()));
-        Map<Long, Long> idViewsMap = statsClient.getMapIdViews(events.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList()));
+        List<EventShort> events = eventJpaRepository.getAllByUser(userId, page);
+        EventEnricher.Enrichment enrichment = eventEnricher.enrichShort(events);
 
         return events.stream()
-                .map(e -> EventMapper.toShortDto(e, initiators.get(e.getInitiatorId()),
-                        idViewsMap.getOrDefault(e.getId(), 0L))).collect(Collectors.toList());
+                .map(e -> EventMapper.toShortDto(e, enrichment.initiator(e), enrichment.views(e)))
+                .collect(Collectors.toList());
     }
 
     public EventFullDto getByUserAndId(int userId, int eventId) {
+        CompletableFuture<Map<Long, Long>> idViewsFuture = asyncStatsClient.getMapIdViews(List.of((long) eventId));
         validateUserExists(userId);
         Event event = eventJpaRepository.getByIdAndUserId(eventId, userId);
         if (event == null) {
             throw new NotFoundException(String.format("События с id=%d и initiatorId=%d не найдено", eventId, userId));
         }
         UserShortDto initiator = getUserShort(event.getInitiatorId());
-        Map<Long, Long> idViewsMap = statsClient.getMapIdViews(List.of(event.getId()));
+        Map<Long, Long> idViewsMap = idViewsFuture.join();
 
         return EventMapper.toFullDto(event, initiator, idViewsMap.getOrDefault(event.getId(), 0L));
     }
 
 
     public EventFullDto getEvent(long eventId) {
+        CompletableFuture<Map<Long, Long>> idViewsFuture = asyncStatsClient.getMapIdViews(List.of(eventId));
         Event event = eventJpaRepository.findById(eventId)
                 .orElseThrow(() -> new NotFoundException(String.format("События с id=%d не найдено", eventId)));
         UserShortDto initiator = getUserShort(event.getInitiatorId());
-        Map<Long, Long> idViewsMap = statsClient.getMapIdViews(List.of(event.getId()));
+        Map<Long, Long> idViewsMap = idViewsFuture.join();
         return EventMapper.toFullDto(event, initiator, idViewsMap.getOrDefault(event.getId(), 0L));
     }
 
-    public EventFullDto getEvent(int eventId, HttpServletRequest request) {
-        Event event = eventJpaRepository.findById((long) eventId)
+    public EventFullDto getEvent(int eventId, HttpServletRequest request, HttpServletResponse response) {
+        /* хит уходит до подсчёта просмотров, чтобы собранная карточка учитывала и этот просмотр */
+        boolean[] hitPosted = {false};
+        EventResponseCache.Entry<EventFullDto> cached = eventResponseCache.getEvent(eventId,
+                () -> getPublishedEvent(eventId, () -> {
+                    postHit(request);
+                    hitPosted[0] = true;
+                }));
+        if (!hitPosted[0]) {
+            postHit(request);
+        }
+
+        if (eventResponseCache.notModified(cached, request, response)) {
+            return null;
+        }
+        return cached.body();
+    }
+
+    /**
+     * @param onPublished вызывается после проверки, что событие опубликовано, и до запроса просмотров
+     */
+    private EventFullDto getPublishedEvent(long eventId, Runnable onPublished) {
+        Event event = eventJpaRepository.findById(eventId)
                 .orElseThrow(() -> new NotFoundException(String.format("События с id=%d не найдено", eventId)));
         if (event.getState() != EventState.PUBLISHED) {
             throw new NotFoundException(String.format("Событие с id=%d не опубликовано", eventId));
         }
-        StatisticsPostResponseDto endpointHitDto = new StatisticsPostResponseDto();
-        endpointHitDto.setApp("ewm-main-event-service");
-        endpointHitDto.setIp(request.getRemoteAddr());
-        endpointHitDto.setTimestamp(LocalDateTime.now().format(TIME_FORMAT));
-        endpointHitDto.setUri(request.getRequestURI());
-
-        statsClient.postHit(endpointHitDto);
-
+        onPublished.run();
+        CompletableFuture<Map<Long, Long>> idViewsFuture = asyncStatsClient.getMapIdViews(List.of(event.getId()));
         UserShortDto initiator = getUserShort(event.getInitiatorId());
-        Map<Long, Long> idViewsMap = statsClient.getMapIdViews(List.of(event.getId()));
+        Map<Long, Long> idViewsMap = idViewsFuture.join();
         return EventMapper.toFullDto(event, initiator, idViewsMap.getOrDefault(event.getId(), 0L));
     }
 
@@ -245,6 +246,8 @@ public class EventServiceImpl implements EventService {
         }
 
         eventJpaRepository.save(event);
+        eventSearchIndexer.index(event);
+        eventResponseCache.evict(event.getId());
         Map<Long, Long> idViewsMap = statsClient.getMapIdViews(List.of(event.getId()));
 
         Event updatedEvent = eventJpaRepository.findById(event.getId())
@@ -329,6 +332,8 @@ public class EventServiceImpl implements EventService {
         }
 
         eventJpaRepository.save(event);
+        eventSearchIndexer.index(event);
+        eventResponseCache.evict(event.getId());
         Map<Long, Long> idViewsMap = statsClient.getMapIdViews(List.of(event.getId()));
 
         Event updatedEvent = eventJpaRepository.findById(event.getId())
@@ -436,21 +441,41 @@ public class EventServiceImpl implements EventService {
         typedQuery.setMaxResults(size);
         resultEvents = typedQuery.getResultList();
 
-        Map<Long, UserShortDto> initiators = getUserShorts(resultEvents.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet()));
-        Map<Long, Long> idViewsMap = statsClient.getMapIdViews(resultEvents.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList()));
+        EventEnricher.Enrichment enrichment = eventEnricher.enrich(resultEvents);
         return resultEvents.stream()
-                .map(e -> EventMapper.toFullDto(e, initiators.get(e.getInitiatorId()),
-                        idViewsMap.getOrDefault(e.getId(), 0L)))
+                .map(e -> EventMapper.toFullDto(e, enrichment.initiator(e), enrichment.views(e)))
                 .collect(Collectors.toList());
     }
 
 
-    @Transactional
     public List<EventShortDto> getEvents(EventParam p) {
+        HttpServletRequest request = p.getRequest();
+        HttpServletResponse response = p.getResponse();
+        EventResponseCache.Entry<List<EventShortDto>> page = eventResponseCache.getListing(p,
+                () -> transactionTemplate.execute(status -> searchEvents(p)));
+
+        postHit(request);
+
+        if (response != null && page.nextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        if (eventResponseCache.notModified(page, request, response)) {
+            return null;
+        }
+        return page.body();
+    }
+
+    private void postHit(HttpServletRequest request) {
+        StatisticsPostResponseDto endpointHitDto = new StatisticsPostResponseDto();
+        endpointHitDto.setApp("ewm-main-event-service");
+        endpointHitDto.setIp(request.getRemoteAddr());
+        endpointHitDto.setTimestamp(LocalDateTime.now().format(TIME_FORMAT));
+        endpointHitDto.setUri(request.getRequestURI());
+
+        statsClient.postHit(endpointHitDto);
+    }
+
+    private EventResponseCache.Page searchEvents(EventParam p) {
         String text = p.getText();
         List<Long> categories = p.getCategories();
         LocalDateTime rangeStart = p.getRangeStart();
@@ -460,12 +485,21 @@ public class EventServiceImpl implements EventService {
         int from = p.getFrom();
         int size = p.getSize();
         String sort = p.getSort();
-        HttpServletRequest request = p.getRequest();
+        String cursor = p.getCursor();
+        Double lat = p.getLat();
+        Double lon = p.getLon();
+        Double radius = p.getRadius();
+        List<Double> bbox = p.getBbox();
 
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Event> criteriaQuery = criteriaBuilder.createQuery(Event.class);
-        Root<Event> eventRoot = criteriaQuery.from(Event.class);
-        criteriaQuery.select(eventRoot);
+        CriteriaQuery<EventSearchShort> criteriaQuery = criteriaBuilder.createQuery(EventSearchShort.class);
+        /* читаемая модель: только опубликованные события, категория, инициатор и просмотры уже в строке */
+        Root<EventSearch> eventRoot = criteriaQuery.from(EventSearch.class);
+        criteriaQuery.select(criteriaBuilder.construct(EventSearchShort.class,
+                eventRoot.get("id"), eventRoot.get("annotation"), eventRoot.get("categoryId"),
+                eventRoot.get("categoryName"), eventRoot.get("confirmedRequests"), eventRoot.get("eventDate"),
+                eventRoot.get("initiatorId"), eventRoot.get("initiatorName"), eventRoot.get("paid"),
+                eventRoot.get("title"), eventRoot.get("views")));
 
         LocalDateTime effectiveRangeStart = rangeStart != null ? rangeStart : LocalDateTime.now();
         LocalDateTime effectiveRangeEnd = rangeEnd != null ? rangeEnd : LocalDateTime.of(9999, 1, 1, 1, 1, 1);
@@ -478,14 +512,17 @@ public class EventServiceImpl implements EventService {
                 effectiveRangeEnd
         );
 
+        Expression<?>[] searchArguments = null;
+        ParameterExpression<String> searchText = criteriaBuilder.parameter(String.class);
+        String decodeText = null;
         if (text != null && !text.isBlank()) {
-            String decodeText = URLDecoder.decode(text, StandardCharsets.UTF_8);
+            decodeText = URLDecoder.decode(text, StandardCharsets.UTF_8);
 
-            Expression<String> annotationLowerCase = criteriaBuilder.lower(eventRoot.get("annotation"));
-            Expression<String> descriptionLowerCase = criteriaBuilder.lower(eventRoot.get("description"));
-            Predicate predicateForAnnotation = criteriaBuilder.like(annotationLowerCase, "%" + decodeText.toLowerCase() + "%");
-            Predicate predicateForDescription = criteriaBuilder.like(descriptionLowerCase, "%" + decodeText.toLowerCase() + "%");
-            Predicate predicateForText = criteriaBuilder.or(predicateForAnnotation, predicateForDescription);
+            /* полнотекстовый поиск по title, annotation и description: префиксы основ слов, русская и английская морфология */
+            searchArguments = new Expression<?>[]{eventRoot.get("title"), eventRoot.get("annotation"),
+                    eventRoot.get("description"), searchText};
+            Predicate predicateForText = criteriaBuilder.isTrue(
+                    criteriaBuilder.function(EventSearchFunctions.MATCH, Boolean.class, searchArguments));
             complexPredicate = criteriaBuilder.and(complexPredicate, predicateForText);
         }
 
@@ -493,7 +530,7 @@ public class EventServiceImpl implements EventService {
             if (categories.stream().anyMatch(c -> c <= 0)) {
                 throw new ValidationException("Id категории должен быть > 0");
             }
-            Predicate predicateForCategoryId = eventRoot.get("category").get("id").in(categories);
+            Predicate predicateForCategoryId = eventRoot.get("categoryId").in(categories);
             complexPredicate = criteriaBuilder.and(complexPredicate, predicateForCategoryId);
         }
 
@@ -509,44 +546,99 @@ public class EventServiceImpl implements EventService {
             complexPredicate = criteriaBuilder.and(complexPredicate, predicateForOnlyAvailable);
         }
 
-        Predicate predicateForPublished = criteriaBuilder.equal(eventRoot.get("state"), EventState.PUBLISHED);
-        complexPredicate = criteriaBuilder.and(complexPredicate, predicateForPublished);
+        Expression<Double> distance = null;
+        if (lat != null || lon != null || radius != null) {
+            if (lat == null || lon == null || radius == null) {
+                throw new ValidationException("Поиск по радиусу требует параметры lat, lon и radius");
+            }
+            /* прямоугольник отбирает кандидатов по индексу, точное расстояние отсекает углы */
+            distance = criteriaBuilder.function(EventSearchFunctions.DISTANCE, Double.class,
+                    eventRoot.get("location").get("lat"), eventRoot.get("location").get("lon"),
+                    criteriaBuilder.literal(lat), criteriaBuilder.literal(lon));
+            complexPredicate = criteriaBuilder.and(complexPredicate,
+                    inGeoBoxes(criteriaBuilder, eventRoot, GeoBox.around(lat, lon, radius)),
+                    criteriaBuilder.le(distance, radius));
+        }
+
+        if (bbox != null && !bbox.isEmpty()) {
+            complexPredicate = criteriaBuilder.and(complexPredicate,
+                    inGeoBoxes(criteriaBuilder, eventRoot, GeoBox.of(bbox)));
+        }
+
+        /* сортировка и страница в базе по индексам (event_date, event_id) и (views, event_id);
+           id замыкает порядок, чтобы страницы не пересекались при равных ключах */
+        boolean byEventDate = "EVENT_DATE".equals(sort);
+        boolean byRelevance = "RELEVANCE".equals(sort);
+        boolean byDistance = "DISTANCE".equals(sort);
+        Path<Comparable<Object>> sortKey = eventRoot.get(byEventDate ? "eventDate" : "views");
+        Path<Long> idKey = eventRoot.get("id");
+        if (byRelevance && searchArguments == null) {
+            throw new ValidationException("Сортировка RELEVANCE возможна только вместе с параметром text");
+        }
+        if (byDistance && distance == null) {
+            throw new ValidationException("Сортировка DISTANCE возможна только вместе с параметрами lat, lon и radius");
+        }
+        if (byRelevance || byDistance) {
+            if (cursor != null && !cursor.isBlank()) {
+                throw new ValidationException("Сортировка " + sort + " листается только через from");
+            }
+        } else if (cursor != null && !cursor.isBlank()) {
+            EventCursor after = EventCursor.decode(cursor);
+            Comparable<Object> afterKey = byEventDate ? cast(after.eventDate()) : cast(after.views());
+            Predicate predicateForCursor = criteriaBuilder.or(
+                    criteriaBuilder.greaterThan(sortKey, afterKey),
+                    criteriaBuilder.and(criteriaBuilder.equal(sortKey, afterKey),
+                            criteriaBuilder.greaterThan(idKey, after.id())));
+            complexPredicate = criteriaBuilder.and(complexPredicate, predicateForCursor);
+        }
 
         criteriaQuery.where(complexPredicate);
+        if (byRelevance) {
+            criteriaQuery.orderBy(criteriaBuilder.desc(
+                    criteriaBuilder.function(EventSearchFunctions.RANK, Float.class, searchArguments)),
+                    criteriaBuilder.asc(idKey));
+        } else if (byDistance) {
+            criteriaQuery.orderBy(criteriaBuilder.asc(distance), criteriaBuilder.asc(idKey));
+        } else {
+            criteriaQuery.orderBy(criteriaBuilder.asc(sortKey), criteriaBuilder.asc(idKey));
+        }
 
-        TypedQuery<Event> typedQuery = entityManager.createQuery(criteriaQuery);
-
-        List<Event> resultEvents = typedQuery.getResultList();
+        TypedQuery<EventSearchShort> typedQuery = entityManager.createQuery(criteriaQuery);
+        if (decodeText != null) {
+            typedQuery.setParameter(searchText, decodeText);
+        }
+        if (cursor == null || cursor.isBlank()) {
+            typedQuery.setFirstResult(from);
+        }
+        typedQuery.setMaxResults(size);
 
-        StatisticsPostResponseDto endpointHitDto = new StatisticsPostResponseDto();
-        endpointHitDto.setApp("ewm-main-event-service");
-        endpointHitDto.setIp(request.getRemoteAddr());
-        endpointHitDto.setTimestamp(LocalDateTime.now().format(TIME_FORMAT));
-        endpointHitDto.setUri(request.getRequestURI());
+        List<EventSearchShort> resultEvents = typedQuery.getResultList();
+        String nextCursor = null;
+        if (!byRelevance && !byDistance && resultEvents.size() == size) {
+            EventSearchShort last = resultEvents.get(resultEvents.size() - 1);
+            EventCursor next = byEventDate ? EventCursor.of(last.eventDate(), last.id())
+                    : EventCursor.of(last.views(), last.id());
+            nextCursor = next.encode();
+        }
 
-        statsClient.postHit(endpointHitDto);
+        return new EventResponseCache.Page(resultEvents.stream()
+                .map(EventMapper::toShortDto)
+                .collect(Collectors.toList()), nextCursor);
+    }
 
-        Map<Long, UserShortDto> initiators = getUserShorts(resultEvents.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet()));
-        Map<Long, Long> idViews = statsClient.getMapIdViews(resultEvents.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList()));
-        Comparator<EventShortDto> comparator;
-        if (sort != null && sort.equals("EVENT_DATE")) {
-            comparator = Comparator.comparing(e -> LocalDateTime.parse(e.getEventDate(), TIME_FORMAT));
-        } else {
-            comparator = Comparator.comparing(EventShortDto::getViews);
-        }
+    private static Predicate inGeoBoxes(CriteriaBuilder criteriaBuilder, Root<EventSearch> eventRoot, List<GeoBox> boxes) {
+        Predicate[] predicates = boxes.stream()
+                .map(box -> criteriaBuilder.isTrue(criteriaBuilder.function(EventSearchFunctions.IN_BOX, Boolean.class,
+                        eventRoot.get("location").get("lon"), eventRoot.get("location").get("lat"),
+                        criteriaBuilder.literal(box.minLon()), criteriaBuilder.literal(box.minLat()),
+                        criteriaBuilder.literal(box.maxLon()), criteriaBuilder.literal(box.maxLat()))))
+                .toArray(Predicate[]::new);
+        return predicates.length == 1 ? predicates[0] : criteriaBuilder.or(predicates);
+    }
 
-        List<EventShortDto> sortedEvents = resultEvents.stream()
-                .map(e -> EventMapper.toShortDto(e, initiators.get(e.getInitiatorId()),
-                        idViews.getOrDefault(e.getId(), 0L)))
-                .sorted(comparator)
-                .collect(Collectors.toList());
-        int startIndex = Math.min(from, sortedEvents.size());
-        int endIndex = Math.min(from + size, sortedEvents.size());
-        return sortedEvents.subList(startIndex, endIndex);
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> cast(Comparable<?> value) {
+        return (Comparable<Object>) value;
     }
 
     public Set<EventFullDto> getEventsByIdSet(Set<Long> eventIds) {
@@ -558,52 +650,19 @@ public class EventServiceImpl implements EventService {
         if (eventList == null || eventList.isEmpty()) {
             return new HashSet<>();
         }
-        Map<Long, UserShortDto> initiators = getUserShorts(eventList.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet()));
-        Map<Long, Long> idViews = statsClient.getMapIdViews(eventList.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList()));
+        EventEnricher.Enrichment enrichment = eventEnricher.enrich(eventList);
 
         return eventList.stream()
-                .map(e -> EventMapper.toFullDto(e, initiators.get(e.getInitiatorId()),
-                        idViews.getOrDefault(e.getId(), 0L)))
+                .map(e -> EventMapper.toFullDto(e, enrichment.initiator(e), enrichment.views(e)))
                 .collect(Collectors.toSet());
     }
 
     private UserShortDto getUserShort(long userId) {
-        UserRequest userRequest = getUserFromService(userId);
-        if (userRequest == null) {
+        UserShortDto user = userShortCache.get(userId);
+        if (user == null) {
             throw new NotFoundException(String.format("Пользователь с id=%d не найден", userId));
         }
-        UserShortDto userShortDto = new UserShortDto();
-        userShortDto.setId(userRequest.getId());
-        userShortDto.setName(userRequest.getName());
-        return userShortDto;
-    }
-
-    private Map<Long, UserShortDto> getUserShorts(Set<Long> userIds) {
-        if (userIds == null || userIds.isEmpty()) {
-            return new HashMap<>();
-        }
-        Map<Long, UserShortDto> result = new HashMap<>();
-        try {
-            List<UserRequest> users = userClient.getByIds(new ArrayList<>(userIds));
-            if (users != null) {
-                for (UserRequest user : users) {
-                    UserShortDto dto = new UserShortDto();
-                    dto.setId(user.getId());
-                    dto.setName(user.getName());
-                    result.put(user.getId(), dto);
-                }
-            }
-        } catch (RuntimeException ex) {
-            result.clear();
-        }
-        for (Long userId : userIds) {
-            result.computeIfAbsent(userId, this::getUserShort);
-        }
-        return result;
+        return user;
     }
 
 
@@ -659,6 +718,7 @@ public class EventServiceImpl implements EventService {
             }
         }
         eventJpaRepository.save(event);
+        eventSearchIndexer.index(event);
         updateEventRequests(event.getId(), updateResult.getConfirmedRequests());
         updateEventRequests(event.getId(), updateResult.getRejectedRequests());
         return updateResult;
@@ -695,6 +755,7 @@ public class EventServiceImpl implements EventService {
             }
         }
         eventJpaRepository.save(event);
+        eventSearchIndexer.index(event);
         updateEventRequests(event.getId(), updateResult.getConfirmedRequests());
         updateEventRequests(event.getId(), updateResult.getRejectedRequests());
         return updateResult;
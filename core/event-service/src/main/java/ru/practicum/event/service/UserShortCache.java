@@ -0,0 +1,165 @@
+package ru.practicum.event.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.UserClient;
+import ru.practicum.user.model.dto.UserRequest;
+import ru.practicum.user.model.dto.UserShortDto;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Кэш инициаторов событий, общий для событий и подборок. Промахи не запрашиваются поодиночке: пока к user-service
+ * идёт запрос getByIds, новые промахи копятся и уходят следующей пачкой, а одновременные запросы одного id ждут
+ * общую загрузку. Неудачная загрузка не кэшируется. Метрики — event.user.cache.*.
+ */
+@Slf4j
+@Component
+public class UserShortCache {
+    private final UserClient userClient;
+    private final int batchSize;
+    private final AsyncLoadingCache<Long, UserShortDto> cache;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "user-cache-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+    private Set<Long> pendingIds = new HashSet<>();
+    private CompletableFuture<Map<Long, UserShortDto>> pendingBatch = new CompletableFuture<>();
+    private boolean loading;
+
+    public UserShortCache(UserClient userClient,
+                          @Value("${event.user-cache.ttl:60s}") Duration ttl,
+                          @Value("${event.user-cache.max-size:10000}") long maxSize,
+                          @Value("${event.user-cache.batch-size:200}") int batchSize,
+                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.userClient = userClient;
+        this.batchSize = batchSize;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<UserShortDto> asyncLoad(Long userId, Executor executor) {
+                        return request(Set.of(userId)).thenApply(users -> users.get(userId));
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<Long, UserShortDto>> asyncLoadAll(Set<? extends Long> userIds,
+                                                                                   Executor executor) {
+                        return request(userIds);
+                    }
+                });
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "event.user.cache");
+        }
+    }
+
+    /**
+     * @return пользователь или null, если его нет или user-service недоступен
+     */
+    @Nullable
+    public UserShortDto get(long userId) {
+        return getAll(Set.of(userId)).get(userId);
+    }
+
+    /**
+     * @return найденные пользователи; отсутствующих и не загруженных из-за ошибки user-service в мапе нет
+     */
+    public Map<Long, UserShortDto> getAll(Collection<Long> userIds) {
+        return getAllAsync(userIds).join();
+    }
+
+    /**
+     * Асинхронный вариант getAll: future не завершается ошибкой, при сбое user-service отдаёт пустую мапу.
+     */
+    public CompletableFuture<Map<Long, UserShortDto>> getAllAsync(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        return cache.getAll(userIds)
+                .<Map<Long, UserShortDto>>thenApply(HashMap::new)
+                .exceptionally(e -> {
+                    log.warn("Не удалось получить пользователей {} из user-service: {}", userIds, e.getMessage());
+                    return new HashMap<>();
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Добавляет id в следующую пачку; если загрузка не идёт, запускает её сразу.
+     */
+    private CompletableFuture<Map<Long, UserShortDto>> request(Collection<? extends Long> userIds) {
+        synchronized (lock) {
+            pendingIds.addAll(userIds);
+            CompletableFuture<Map<Long, UserShortDto>> batch = pendingBatch;
+            if (!loading) {
+                loading = true;
+                loader.execute(this::drain);
+            }
+            return batch;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Set<Long> userIds;
+            CompletableFuture<Map<Long, UserShortDto>> batch;
+            synchronized (lock) {
+                if (pendingIds.isEmpty()) {
+                    loading = false;
+                    return;
+                }
+                userIds = pendingIds;
+                batch = pendingBatch;
+                pendingIds = new HashSet<>();
+                pendingBatch = new CompletableFuture<>();
+            }
+            try {
+                batch.complete(load(userIds));
+            } catch (RuntimeException e) {
+                batch.completeExceptionally(e);
+            }
+        }
+    }
+
+    private Map<Long, UserShortDto> load(Set<Long> userIds) {
+        Map<Long, UserShortDto> users = new HashMap<>();
+        List<Long> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<UserRequest> loaded = userClient.getByIds(ids.subList(from, Math.min(from + batchSize, ids.size())));
+            if (loaded == null) {
+                continue;
+            }
+            for (UserRequest user : loaded) {
+                UserShortDto dto = new UserShortDto();
+                dto.setId(user.getId());
+                dto.setName(user.getName());
+                users.put(user.getId(), dto);
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,26 @@
+-- поиск событий (полнотекстовый и гео), только Postgres; выполняется после schema.sql
+
+-- вектор поиска: русская и английская морфология, веса title > annotation > description
+CREATE OR REPLACE FUNCTION event_search_vector(title TEXT, annotation TEXT, description TEXT) RETURNS tsvector
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+SELECT setweight(to_tsvector('russian', coalesce(title, '')) || to_tsvector('english', coalesce(title, '')), 'A')
+    || setweight(to_tsvector('russian', coalesce(annotation, '')) || to_tsvector('english', coalesce(annotation, '')), 'B')
+    || setweight(to_tsvector('russian', coalesce(description, '')) || to_tsvector('english', coalesce(description, '')), 'C')
+$$;
+
+-- запрос поиска: все слова строки, каждое — префикс своей основы на любом из двух языков;
+-- слово, ставшее стоп-словом хотя бы в одном языке, отбрасывается
+CREATE OR REPLACE FUNCTION event_search_query(q TEXT) RETURNS tsquery
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+SELECT coalesce(string_agg('(' || (w.ru || w.en)::text || ')', ' & '), '')::tsquery
+FROM (SELECT to_tsquery('russian', quote_literal(t) || ':*') AS ru, to_tsquery('english', quote_literal(t) || ':*') AS en
+      FROM regexp_split_to_table(lower(q), '[[:space:][:punct:]]+') AS t
+      WHERE t <> '') w
+WHERE numnode(w.ru) > 0 AND numnode(w.en) > 0
+$$;
+
+-- индекс по выражению: Postgres пересчитывает его сам при каждой вставке и изменении строки
+CREATE INDEX IF NOT EXISTS ix_event_search_text ON event_search USING GIN (event_search_vector(title, annotation, description));
+
+-- гео-поиск: точка (долгота, широта) события, отбор по прямоугольнику оператором <@
+CREATE INDEX IF NOT EXISTS ix_event_search_location ON event_search USING GIST (point(location_lon, location_lat));
@@ -25,6 +25,58 @@ CREATE TABLE IF NOT EXISTS events (
  CONSTRAINT fk_event_category FOREIGN KEY (category) REFERENCES categories (id) ON DELETE RESTRICT
 );
 
+-- фильтры states и rangeStart/rangeEnd в getEventsAdmin
+CREATE INDEX IF NOT EXISTS ix_events_state_event_date ON events (state, event_date, id);
+
+-- события пользователя (getAllByUser, фильтр users в getEventsAdmin)
+CREATE INDEX IF NOT EXISTS ix_events_initiator ON events (initiator, id);
+
+-- события категории (findByCategoryId, existsByCategory, фильтр categories, проверка внешнего ключа при удалении категории)
+CREATE INDEX IF NOT EXISTS ix_events_category ON events (category, event_date);
+
+-- читаемая модель публичного поиска: опубликованные события с категорией, инициатором и просмотрами,
+-- ведут EventSearchIndexer (при записи события) и EventSearchSynchronizer (просмотры, имена)
+CREATE TABLE IF NOT EXISTS event_search (
+ event_id BIGINT NOT NULL,
+ annotation VARCHAR(5000) NOT NULL,
+ category_id BIGINT NOT NULL,
+ category_name VARCHAR(50) NOT NULL,
+ confirmed_requests INTEGER NOT NULL,
+ description VARCHAR (10000) NOT NULL,
+ event_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+ initiator_id BIGINT NOT NULL,
+ initiator_name VARCHAR(250),
+ location_lat FLOAT NOT NULL,
+ location_lon FLOAT NOT NULL,
+ paid BOOLEAN NOT NULL,
+ participant_limit INT NOT NULL,
+ title VARCHAR (300) NOT NULL,
+ views BIGINT NOT NULL DEFAULT 0,
+ CONSTRAINT pk_event_search PRIMARY KEY (event_id),
+ CONSTRAINT fk_event_search_event FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
+);
+
+-- порядок сортировки публичного поиска, (…, event_id) — ключ постраничного курсора
+CREATE INDEX IF NOT EXISTS ix_event_search_event_date ON event_search (event_date, event_id);
+
+CREATE INDEX IF NOT EXISTS ix_event_search_views ON event_search (views, event_id);
+
+-- фильтр categories и переименование категории
+CREATE INDEX IF NOT EXISTS ix_event_search_category ON event_search (category_id, event_date);
+
+-- обновление имени инициатора
+CREATE INDEX IF NOT EXISTS ix_event_search_initiator ON event_search (initiator_id);
+
+-- опубликованные события, которых ещё нет в модели (первый запуск); имена и просмотры дозаполнит синхронизация
+INSERT INTO event_search (event_id, annotation, category_id, category_name, confirmed_requests, description,
+                          event_date, initiator_id, location_lat, location_lon, paid, participant_limit, title)
+SELECT e.id, e.annotation, e.category, c.name, e.confirmed_requests, e.description,
+       e.event_date, e.initiator, e.location_lat, e.location_lon, e.paid, e.participant_limit, e.title
+FROM events AS e
+JOIN categories AS c ON c.id = e.category
+WHERE e.state = 'PUBLISHED'
+AND NOT EXISTS (SELECT 1 FROM event_search AS s WHERE s.event_id = e.id);
+
 
 CREATE TABLE IF NOT EXISTS requests (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -46,6 +98,14 @@ event_id BIGINT REFERENCES events (id) ON DELETE CASCADE,
 compilation_id BIGINT REFERENCES compilations (id) ON DELETE CASCADE
 );
 
+-- подборки на главной (findByPinned)
+CREATE INDEX IF NOT EXISTS ix_compilations_pinned ON compilations (pinned, id);
+
+-- события подборки при загрузке Compilation.events и каскадное удаление со стороны событий
+CREATE INDEX IF NOT EXISTS ix_event_compilation_compilation ON event_compilation (compilation_id, event_id);
+
+CREATE INDEX IF NOT EXISTS ix_event_compilation_event ON event_compilation (event_id);
+
 
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -0,0 +1,114 @@
+package ru.practicum.event.model;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class GeoBoxTest {
+
+    @Test
+    void circleAwayFromEdgesIsOneBox() {
+        List<GeoBox> boxes = GeoBox.around(55.75, 37.62, 10);
+
+        assertThat(boxes).hasSize(1);
+        GeoBox box = boxes.getFirst();
+        assertThat(box.minLat()).isCloseTo(55.75 - 10 / 111.195, within(1e-3));
+        assertThat(box.maxLat()).isCloseTo(55.75 + 10 / 111.195, within(1e-3));
+        assertThat(box.minLon()).isLessThan(37.62).isGreaterThan(37.4);
+        assertThat(box.maxLon()).isGreaterThan(37.62).isLessThan(37.8);
+    }
+
+    @Test
+    void circleCrossingAntimeridianEastwardIsSplit() {
+        List<GeoBox> boxes = GeoBox.around(0, 179.95, 50);
+
+        assertThat(boxes).hasSize(2);
+        assertThat(boxes.get(0).minLon()).isLessThan(179.95);
+        assertThat(boxes.get(0).maxLon()).isEqualTo(180);
+        assertThat(boxes.get(1).minLon()).isEqualTo(-180);
+        assertThat(boxes.get(1).maxLon()).isGreaterThan(-180).isLessThan(-179);
+    }
+
+    @Test
+    void circleCrossingAntimeridianWestwardIsSplit() {
+        List<GeoBox> boxes = GeoBox.around(-30, -179.9, 100);
+
+        assertThat(boxes).hasSize(2);
+        assertThat(boxes.get(0).minLon()).isLessThan(180).isGreaterThan(179);
+        assertThat(boxes.get(0).maxLon()).isEqualTo(180);
+        assertThat(boxes.get(1).minLon()).isEqualTo(-180);
+        assertThat(boxes.get(1).maxLon()).isGreaterThan(-179.9);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"89.95, 10, 20", "-89.99, -120, 5", "85, 0, 1000", "90, 0, 1"})
+    void circleReachingPoleCoversAllLongitudes(double lat, double lon, double radiusKm) {
+        List<GeoBox> boxes = GeoBox.around(lat, lon, radiusKm);
+
+        assertThat(boxes).hasSize(1);
+        GeoBox box = boxes.getFirst();
+        assertThat(box.minLon()).isEqualTo(-180);
+        assertThat(box.maxLon()).isEqualTo(180);
+        assertThat(box.minLat()).isGreaterThanOrEqualTo(-90);
+        assertThat(box.maxLat()).isLessThanOrEqualTo(90);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"55.75, 37.62, 10", "0, 179.95, 50", "-30, -179.9, 100", "80, 170, 1000", "89.5, 0, 60",
+            "-60, -179, 2000", "10, 0, 5000"})
+    void boxesContainWholeCircle(double lat, double lon, double radiusKm) {
+        List<GeoBox> boxes = GeoBox.around(lat, lon, radiusKm);
+
+        for (int bearing = 0; bearing < 360; bearing++) {
+            for (double fraction : new double[]{0.5, 0.999}) {
+                double[] point = destination(lat, lon, bearing, radiusKm * fraction);
+                assertThat(boxes.stream().anyMatch(box -> contains(box, point[0], point[1])))
+                        .as("точка %s,%s на азимуте %d", point[0], point[1], bearing)
+                        .isTrue();
+            }
+        }
+    }
+
+    @Test
+    void bboxCrossingAntimeridianIsSplit() {
+        assertThat(GeoBox.of(List.of(170.0, -10.0, -170.0, 10.0))).containsExactly(
+                new GeoBox(170, -10, 180, 10),
+                new GeoBox(-180, -10, -170, 10));
+        assertThat(GeoBox.of(List.of(-10.0, -10.0, 10.0, 10.0))).containsExactly(new GeoBox(-10, -10, 10, 10));
+    }
+
+    @Test
+    void invalidInputIsRejected() {
+        assertThatThrownBy(() -> GeoBox.around(91, 0, 10)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> GeoBox.around(0, 181, 10)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> GeoBox.around(0, 0, 0)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> GeoBox.of(List.of(0.0, 0.0, 1.0))).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> GeoBox.of(List.of(0.0, 10.0, 1.0, 5.0))).isInstanceOf(ValidationException.class);
+    }
+
+    private static boolean contains(GeoBox box, double lat, double lon) {
+        double eps = 1e-9;
+        return lat >= box.minLat() - eps && lat <= box.maxLat() + eps
+                && lon >= box.minLon() - eps && lon <= box.maxLon() + eps;
+    }
+
+    /* точка на расстоянии distanceKm по большому кругу от (lat, lon) в направлении bearing */
+    private static double[] destination(double lat, double lon, double bearing, double distanceKm) {
+        double phi = Math.toRadians(lat);
+        double lambda = Math.toRadians(lon);
+        double theta = Math.toRadians(bearing);
+        double delta = distanceKm / GeoBox.EARTH_RADIUS_KM;
+        double phi2 = Math.asin(Math.sin(phi) * Math.cos(delta) + Math.cos(phi) * Math.sin(delta) * Math.cos(theta));
+        double lambda2 = lambda + Math.atan2(Math.sin(theta) * Math.sin(delta) * Math.cos(phi),
+                Math.cos(delta) - Math.sin(phi) * Math.sin(phi2));
+        double lon2 = (Math.toDegrees(lambda2) + 540) % 360 - 180;
+        return new double[]{Math.toDegrees(phi2), lon2};
+    }
+}
@@ -0,0 +1,317 @@
+package ru.practicum.event.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.category.repository.CategoryRepository;
+import ru.practicum.category.service.CategoryService;
+import ru.practicum.client.AsyncStatsClient;
+import ru.practicum.client.RequestClient;
+import ru.practicum.client.StatsClient;
+import ru.practicum.compilation.repository.CompilationRepository;
+import ru.practicum.event.model.EventParam;
+import ru.practicum.event.service.EventEnricher;
+import ru.practicum.event.service.EventResponseCache;
+import ru.practicum.event.service.EventSearchIndexer;
+import ru.practicum.event.service.EventServiceImpl;
+import ru.practicum.event.service.UserShortCache;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Регрессия планов: запросы EventRepository, getEventsAdmin и getEvents на Postgres с представительными данными
+ * не должны переходить на последовательное чтение events, event_compilation и event_search. Проверяется SQL,
+ * который порождает Hibernate, план — EXPLAIN (GENERIC_PLAN), без привязки к значениям параметров.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:schema.sql,classpath:schema-postgresql.sql",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.practicum.event.repository.EventQueryPlanTest$SqlCapture"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventQueryPlanTest {
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (events|event_compilation|event_search)\\b");
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private static EmbeddedPostgres postgres;
+    private static boolean seeded;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private CompilationRepository compilationRepository;
+    @Autowired
+    private EventServiceImpl eventService;
+
+    @MockBean
+    private CategoryService categoryService;
+    @MockBean
+    private UserShortCache userShortCache;
+    @MockBean
+    private EventEnricher eventEnricher;
+    @MockBean
+    private EventResponseCache eventResponseCache;
+    @MockBean
+    private EventSearchIndexer eventSearchIndexer;
+    @MockBean
+    private RequestClient requestClient;
+    @MockBean
+    private StatsClient statsClient;
+    @MockBean
+    private AsyncStatsClient asyncStatsClient;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        if (postgres == null) {
+            postgres = EmbeddedPostgres.start();
+        }
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @BeforeEach
+    void seed() throws SQLException {
+        when(eventEnricher.enrich(any())).thenReturn(new EventEnricher.Enrichment(Map.of(), Map.of()));
+        when(eventResponseCache.getListing(any(), any())).thenAnswer(invocation -> {
+            Supplier<EventResponseCache.Page> loader = invocation.getArgument(1);
+            EventResponseCache.Page page = loader.get();
+            return new EventResponseCache.Entry<>(page.events(), page.nextCursor(), "\"plan\"");
+        });
+        if (seeded) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO categories (name) SELECT 'category ' || i FROM generate_series(1, 100) AS i;
+                    INSERT INTO events (annotation, category, confirmed_requests, created_on, description, event_date,
+                                        initiator, location_lat, location_lon, paid, participant_limit, published_on,
+                                        request_moderation, state, title)
+                    SELECT 'annotation of event ' || i, 1 + i % 100, i % 7, now(), 'description of event ' || i,
+                           now() + (i % 365) * interval '1 day' + (i % 24) * interval '1 hour', 1 + i % 5000,
+                           (i % 170) - 85, (i % 350) - 175, i % 2 = 0, 10 * (i % 3), now(), true,
+                           CASE i % 10 WHEN 0 THEN 'PENDING' WHEN 1 THEN 'CANCELED' ELSE 'PUBLISHED' END,
+                           'event ' || i
+                    FROM generate_series(1, 50000) AS i;
+                    INSERT INTO event_search (event_id, annotation, category_id, category_name, confirmed_requests,
+                                              description, event_date, initiator_id, location_lat, location_lon,
+                                              paid, participant_limit, title, views)
+                    SELECT e.id, e.annotation, e.category, c.name, e.confirmed_requests, e.description, e.event_date,
+                           e.initiator, e.location_lat, e.location_lon, e.paid, e.participant_limit, e.title, e.id % 997
+                    FROM events AS e JOIN categories AS c ON c.id = e.category
+                    WHERE e.state = 'PUBLISHED';
+                    INSERT INTO compilations (pinned, title)
+                    SELECT i % 10 = 0, 'compilation ' || i FROM generate_series(1, 5000) AS i;
+                    INSERT INTO event_compilation (event_id, compilation_id)
+                    SELECT 1 + (i * 7919) % 50000, 1 + i % 5000 FROM generate_series(1, 50000) AS i;
+                    ANALYZE;
+                    """);
+        }
+        seeded = true;
+    }
+
+    @Test
+    void findByCategoryId() {
+        assertNoSeqScan(() -> eventRepository.findByCategoryId(7));
+    }
+
+    @Test
+    void getAllByUser() {
+        assertNoSeqScan(() -> eventRepository.getAllByUser(42, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void getByIdAndUserId() {
+        assertNoSeqScan(() -> eventRepository.getByIdAndUserId(1042, 42));
+    }
+
+    @Test
+    void findByIdIn() {
+        assertNoSeqScan(() -> eventRepository.findByIdIn(Set.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void findEventsWithUsersByIdSet() {
+        assertNoSeqScan(() -> eventRepository.findEventsWIthUsersByIdSet(Set.of(10L, 20L, 30L)));
+    }
+
+    @Test
+    void existsByCategory() {
+        assertNoSeqScan(() -> eventRepository.existsByCategory(categoryRepository.getReferenceById(7L)));
+    }
+
+    @Test
+    void compilationWithEvents() {
+        assertNoSeqScan(() -> compilationRepository.findById(17L));
+    }
+
+    @Test
+    void getEventsAdminByStatesAndRange() {
+        assertNoSeqScan(() -> eventService.getEventsAdmin(EventParam.builder()
+                .states(List.of("PENDING"))
+                .rangeStart(NOW.plusDays(10))
+                .rangeEnd(NOW.plusDays(12))
+                .from(0)
+                .size(10)
+                .build()));
+    }
+
+    @Test
+    void getEventsAdminByUsers() {
+        assertNoSeqScan(() -> eventService.getEventsAdmin(EventParam.builder()
+                .users(List.of(42L, 43L))
+                .from(0)
+                .size(10)
+                .build()));
+    }
+
+    @Test
+    void getEventsAdminByCategoriesAndRange() {
+        assertNoSeqScan(() -> eventService.getEventsAdmin(EventParam.builder()
+                .categories(List.of(7L))
+                .rangeStart(NOW.plusDays(10))
+                .rangeEnd(NOW.plusDays(40))
+                .from(0)
+                .size(10)
+                .build()));
+    }
+
+    @Test
+    void getEventsByViews() {
+        assertNoSeqScan(() -> eventService.getEvents(publicSearch().build()));
+    }
+
+    @Test
+    void getEventsByDateAndCategories() {
+        assertNoSeqScan(() -> eventService.getEvents(publicSearch()
+                .sort("EVENT_DATE")
+                .categories(List.of(7L, 8L))
+                .rangeStart(NOW.plusDays(10))
+                .rangeEnd(NOW.plusDays(40))
+                .build()));
+    }
+
+    @Test
+    void getEventsByText() {
+        assertNoSeqScan(() -> eventService.getEvents(publicSearch().text("event 4242").build()));
+    }
+
+    @Test
+    void getEventsByRadius() {
+        assertNoSeqScan(() -> eventService.getEvents(publicSearch().lat(10.0).lon(20.0).radius(50.0).build()));
+    }
+
+    private static EventParam.EventParamBuilder publicSearch() {
+        return EventParam.builder()
+                .from(0)
+                .size(10)
+                .request(new MockHttpServletRequest("GET", "/events"));
+    }
+
+    private void assertNoSeqScan(Runnable action) {
+        SqlCapture.STATEMENTS.clear();
+        action.run();
+        List<String> statements = List.copyOf(SqlCapture.STATEMENTS);
+        assertThat(statements).as("запросы к базе").isNotEmpty();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertThat(SEQ_SCAN.matcher(plan).find())
+                    .as("последовательное чтение в плане%n%s%nзапроса%n%s", plan, sql)
+                    .isFalse();
+        }
+    }
+
+    private String explain(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        Matcher matcher = PARAMETER.matcher(sql);
+        int index = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, "\\$" + ++index);
+        }
+        matcher.appendTail(numbered);
+        List<String> lines = new ArrayList<>();
+        // простой протокол: иначе драйвер требует значения для $n, а GENERIC_PLAN строит план без них
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl("postgres", "postgres") + "&preferQueryMode=simple");
+             Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN (GENERIC_PLAN) " + numbered)) {
+            while (plan.next()) {
+                lines.add(plan.getString(1));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Не удалось получить план запроса " + sql, e);
+        }
+        return String.join("\n", lines);
+    }
+
+    @Configuration
+    @EntityScan(basePackages = "ru.practicum")
+    @EnableJpaRepositories(basePackages = "ru.practicum")
+    @Import(EventServiceImpl.class)
+    static class Config {
+    }
+
+    /**
+     * Запоминает SQL, который Hibernate отправляет в базу.
+     */
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Запуск бенчмарков stats: аргументы командной строки JMH (фильтр, -p, -f, -wi, -i) плюс профайлер GC,
+ * чтобы рядом с ops/s публиковались gc.alloc.rate и gc.alloc.rate.norm (байт на операцию).
+ * Результаты пишутся в target/jmh-result.json для сравнения между релизами.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build())
+                .run();
+    }
+}
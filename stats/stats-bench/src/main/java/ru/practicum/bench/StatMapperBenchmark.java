@@ -0,0 +1,54 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.dto.StatisticsPostResponseDto;
+import ru.practicum.mappers.StatMapper;
+import ru.practicum.model.Statistics;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования хита на пути записи: разбор входящего DTO и обратная сериализация времени.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatMapperBenchmark {
+    private StatisticsPostResponseDto dto;
+    private Statistics statistics;
+
+    @Setup
+    public void setUp() {
+        dto = StatisticsPostResponseDto.builder()
+                .app("ewm-main-service")
+                .uri("/events/12345")
+                .ip("192.168.10.20")
+                .timestamp("2026-03-15 12:34:56")
+                .build();
+        statistics = Statistics.builder()
+                .app("ewm-main-service")
+                .uri("/events/12345")
+                .ip("192.168.10.20")
+                .timestamp(LocalDateTime.of(2026, 3, 15, 12, 34, 56))
+                .build();
+    }
+
+    @Benchmark
+    public Statistics fromDto() {
+        return StatMapper.fromDto(dto);
+    }
+
+    @Benchmark
+    public StatisticsPostResponseDto toDto() {
+        return StatMapper.toDto(statistics);
+    }
+
+    @Benchmark
+    public LocalDateTime parseTime() {
+        return StatMapper.parseTime(dto.getTimestamp());
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.bench;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import ru.practicum.EwmStatsServer;
+import ru.practicum.service.StatService;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * StatServiceImpl.getStats на встроенном Postgres: rows хитов за 90 дней по uris событиям с перекосом
+ * популярности. Данные заливаются до старта контекста, поэтому секции и агрегаты строятся штатной
+ * инициализацией stats-server, как после рестарта на живой базе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StatServiceBenchmark {
+    private static final int HISTORY_DAYS = 90;
+    private static final int QUERY_DAYS = 30;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param("10000")
+    private int uris;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private StatService statService;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private List<String> eventUris;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+        load(new JdbcTemplate(postgres.getPostgresDatabase()));
+        context = new SpringApplicationBuilder(EwmStatsServer.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.config.import=",
+                        "spring.cloud.config.enabled=false",
+                        "spring.cloud.config.discovery.enabled=false",
+                        "eureka.client.enabled=false",
+                        "spring.sql.init.mode=always",
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=postgres",
+                        "logging.level.root=WARN")
+                .run();
+        statService = context.getBean(StatService.class);
+        end = LocalDateTime.now();
+        start = end.minusDays(QUERY_DAYS);
+        eventUris = IntStream.rangeClosed(1, 10).mapToObj(i -> "/events/" + i).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public void allUris(Blackhole blackhole) {
+        blackhole.consume(statService.getStats(start, end, null, false, false, null));
+    }
+
+    @Benchmark
+    public void allUrisTop10(Blackhole blackhole) {
+        blackhole.consume(statService.getStats(start, end, null, false, false, 10));
+    }
+
+    @Benchmark
+    public void selectedUris(Blackhole blackhole) {
+        blackhole.consume(statService.getStats(start, end, eventUris, false, false, null));
+    }
+
+    @Benchmark
+    public void selectedUrisUnique(Blackhole blackhole) {
+        blackhole.consume(statService.getStats(start, end, eventUris, true, true, null));
+    }
+
+    @Benchmark
+    public void allUrisUniqueTop10(Blackhole blackhole) {
+        blackhole.consume(statService.getStats(start, end, null, true, true, 10));
+    }
+
+    private void load(JdbcTemplate jdbc) throws SQLException {
+        try (Connection connection = jdbc.getDataSource().getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        }
+        jdbc.execute("CREATE TABLE IF NOT EXISTS statistics_default PARTITION OF statistics DEFAULT");
+        jdbc.update("INSERT INTO stats_app (name) VALUES ('ewm-main-service'), ('ewm-extra-service')");
+        jdbc.update("INSERT INTO stats_uri (uri) SELECT '/events/' || g FROM generate_series(1, ?) g", uris);
+        /* куб случайного числа смещает хиты к первым событиям: несколько популярных и длинный хвост */
+        jdbc.update("""
+                INSERT INTO statistics (app_id, uri_id, ip, call_time)
+                SELECT 1 + g % 2,
+                       1 + floor(power(random(), 3) * ?)::int,
+                       '10.' || g % 200 || '.' || g / 200 % 250 || '.' || g % 97,
+                       localtimestamp - random() * (? * interval '1 day')
+                FROM generate_series(1, ?) g
+                """, uris, HISTORY_DAYS, rows);
+        jdbc.execute("ANALYZE");
+    }
+}
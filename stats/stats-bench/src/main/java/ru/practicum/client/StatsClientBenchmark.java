@@ -0,0 +1,146 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.dto.ViewsRequestDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * StatsClient.getMapIdViews: сборка запроса /views, JSON в обе стороны и разбор id из URI.
+ * Сервис статистики подменён HTTP-заглушкой в том же процессе с заранее сериализованным ответом,
+ * поэтому замер включает пул соединений и RestTemplate, но не базу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsClientBenchmark {
+    private static final TypeReference<Map<Long, Long>> VIEWS_MAP = new TypeReference<>() {
+    };
+
+    @Param({"10", "100", "1000"})
+    private int ids;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpServer server;
+    private StatsInstanceResolver resolver;
+    private StatsHttpTransport transport;
+    private StatsClient client;
+    private List<Long> eventIds;
+    private List<String> eventUris;
+    private byte[] viewsResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        eventIds = LongStream.rangeClosed(1, ids).boxed().toList();
+        eventUris = eventIds.stream().map(id -> "/events/" + id).toList();
+        viewsResponse = objectMapper.writeValueAsBytes(eventIds.stream()
+                .collect(Collectors.toMap(Function.identity(), id -> id * 31)));
+
+        /* без TCP_NODELAY заглушка упирается в задержанный ACK и меряет 40 мс сети вместо клиента */
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/views", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, viewsResponse.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(viewsResponse);
+            }
+        });
+        server.start();
+
+        int port = server.getAddress().getPort();
+        DiscoveryClient discoveryClient = new DiscoveryClient() {
+            @Override
+            public String description() {
+                return "stub";
+            }
+
+            @Override
+            public List<ServiceInstance> getInstances(String serviceId) {
+                return List.of(new DefaultServiceInstance("stub", serviceId, "localhost", port, false));
+            }
+
+            @Override
+            public List<String> getServices() {
+                return List.of("stats-server");
+            }
+        };
+        var meterRegistry = new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class);
+        resolver = new StatsInstanceResolver(discoveryClient, "stats-server",
+                StatsInstanceResolver.Strategy.ROUND_ROBIN, 60_000, Duration.ofSeconds(1));
+        while (true) {
+            try {
+                resolver.acquire().release();
+                break;
+            } catch (StatsServerUnavailable e) {
+                Thread.sleep(10);
+            }
+        }
+        transport = new StatsHttpTransport(50, 20, Duration.ofSeconds(1), Duration.ofSeconds(3),
+                Duration.ofMillis(500), Duration.ofSeconds(30), Duration.ofSeconds(30), Duration.ofMinutes(5),
+                meterRegistry);
+        client = new StatsClient(new RestTemplateBuilder(), transport, resolver, objectMapper,
+                false, 10_000, 200, 500,
+                false, Files.createTempDirectory("stats-bench-spool"), DataSize.ofMegabytes(8),
+                DataSize.ofMegabytes(256), 500, 1000,
+                new ViewCountCache(false, Duration.ofSeconds(5), 10_000, meterRegistry), meterRegistry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.shutdown();
+        transport.shutdown();
+        resolver.shutdown();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Map<Long, Long> getMapIdViews() {
+        return client.getMapIdViews(eventIds);
+    }
+
+    @Benchmark
+    public byte[] buildViewsRequest() throws IOException {
+        ViewsRequestDto request = StatsClient.viewsRequest(eventIds);
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public Map<Long, Long> parseViewsResponse() throws IOException {
+        return objectMapper.readValue(viewsResponse, VIEWS_MAP);
+    }
+
+    @Benchmark
+    public long parseEventIds() {
+        long sum = 0;
+        for (String uri : eventUris) {
+            Long id = StatsClient.parseEventId(uri);
+            sum += id != null ? id : 0;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,194 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.practicum.dto.StatisticsGetResponseDto;
+import ru.practicum.dto.StatisticsPostResponseDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Неблокирующий вариант StatsClient с той же семантикой: при недоступности сервиса статистики getStats и postHit
+ * завершаются null, getMapIdViews — нулевыми просмотрами. Future никогда не завершается исключением,
+ * поэтому join() в вызывающем коде безопасен. Экземпляры выбираются через общий StatsInstanceResolver,
+ * кэш просмотров общий со StatsClient.
+ */
+@Slf4j
+@Component
+public class AsyncStatsClient {
+    private static final TypeReference<List<StatisticsGetResponseDto>> STATS_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<Long, Long>> VIEWS_MAP = new TypeReference<>() {
+    };
+
+    private final StatsInstanceResolver instanceResolver;
+    private final ObjectMapper objectMapper;
+    private final ViewCountCache viewCountCache;
+    private final Duration readTimeout;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+
+    public AsyncStatsClient(StatsInstanceResolver instanceResolver,
+                            ObjectMapper objectMapper,
+                            ViewCountCache viewCountCache,
+                            @Value("${stats.client.http.connect-timeout:1s}") Duration connectTimeout,
+                            @Value("${stats.client.http.read-timeout:3s}") Duration readTimeout,
+                            @Value("${stats.client.async.threads:4}") int threads) {
+        this.instanceResolver = instanceResolver;
+        this.objectMapper = objectMapper;
+        this.viewCountCache = viewCountCache;
+        this.readTimeout = readTimeout;
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "stats-client-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CompletableFuture<List<StatisticsGetResponseDto>> getStats(LocalDateTime startTime, LocalDateTime endTime,
+                                                                      @Nullable String[] uris, @Nullable Boolean unique) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromPath("/stats")
+                .queryParam("start", startTime.format(StatsClient.TIME_FORMAT))
+                .queryParam("end", endTime.format(StatsClient.TIME_FORMAT));
+        if (uris != null) {
+            builder.queryParam("uris", (Object[]) uris);
+        }
+        if (unique != null) {
+            builder.queryParam("unique", unique);
+        }
+        String pathAndQuery = builder.encode().build().toUriString();
+        return send(baseUrl -> HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                        .GET(),
+                response -> response.statusCode() == HttpStatus.OK.value()
+                        ? readJson(response.body(), STATS_LIST)
+                        : null);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> postHit(StatisticsPostResponseDto hit) {
+        byte[] body = writeJson(hit);
+        return send(baseUrl -> HttpRequest.newBuilder(URI.create(baseUrl + "/hit"))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body)),
+                response -> HttpStatus.valueOf(response.statusCode()).isError()
+                        ? null
+                        : ResponseEntity.status(response.statusCode()).body(new String(response.body())))
+                .thenApply(response -> {
+                    Long eventId = StatsClient.parseEventId(hit.getUri());
+                    if (response != null && eventId != null) {
+                        viewCountCache.invalidate(eventId);
+                    }
+                    return response;
+                });
+    }
+
+    public CompletableFuture<Map<Long, Long>> getMapIdViews(Collection<Long> eventsId) {
+        if (eventsId == null || eventsId.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        return viewCountCache.getAllAsync(eventsId, missing -> {
+            byte[] body = writeJson(StatsClient.viewsRequest(missing));
+            return send(baseUrl -> HttpRequest.newBuilder(URI.create(baseUrl + "/views"))
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(body)),
+                    response -> response.statusCode() == HttpStatus.OK.value()
+                            ? readJson(response.body(), VIEWS_MAP)
+                            : null);
+        });
+    }
+
+    /**
+     * Отправляет запрос на выбранный экземпляр; lease освобождается по завершении ответа,
+     * экземпляр исключается из выбора при ошибке соединения. Любая ошибка превращается в null.
+     */
+    private <T> CompletableFuture<T> send(Function<String, HttpRequest.Builder> request,
+                                          Function<HttpResponse<byte[]>, T> mapper) {
+        StatsInstanceResolver.Lease lease;
+        try {
+            lease = instanceResolver.acquire();
+        } catch (StatsServerUnavailable e) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<HttpResponse<byte[]>> response;
+        try {
+            response = httpClient.sendAsync(request.apply(lease.baseUrl()).timeout(readTimeout).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            lease.release();
+            log.warn("Ошибка отправки запроса в сервис статистики", e);
+            return CompletableFuture.completedFuture(null);
+        }
+        return response.handle((result, error) -> {
+            lease.release();
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                    lease.markFailed();
+                }
+                log.warn("Ошибка запроса к сервису статистики: {}", cause.toString());
+                return null;
+            }
+            try {
+                return mapper.apply(result);
+            } catch (RuntimeException e) {
+                log.warn("Некорректный ответ сервиса статистики", e);
+                return null;
+            }
+        });
+    }
+
+    private <T> T readJson(byte[] body, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка разбора ответа сервиса статистики", e);
+        }
+    }
+
+    private byte[] writeJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка сериализации запроса к сервису статистики", e);
+        }
+    }
+}
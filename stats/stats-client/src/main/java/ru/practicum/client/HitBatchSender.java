@@ -0,0 +1,67 @@
+package ru.practicum.client;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.batch.BatchDrainLoop;
+import ru.practicum.dto.StatisticsPostResponseDto;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Копит хиты в ограниченной очереди и отправляет их пачками из фонового потока,
+ * чтобы пользовательский запрос не ждал ответа сервиса статистики.
+ * При переполнении очереди новый хит отбрасывается, вызывающий поток не блокируется.
+ */
+@Slf4j
+class HitBatchSender {
+    private final Consumer<List<StatisticsPostResponseDto>> batchConsumer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<StatisticsPostResponseDto> queue;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    HitBatchSender(Consumer<List<StatisticsPostResponseDto>> batchConsumer,
+                   int queueCapacity, int batchSize, long flushIntervalMillis) {
+        this.batchConsumer = batchConsumer;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::sendLoop, "stats-hit-sender");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    boolean enqueue(StatisticsPostResponseDto hit) {
+        if (queue.offer(hit)) {
+            return true;
+        }
+        log.warn("Очередь отправки хитов переполнена, хит {} отброшен", hit.getUri());
+        return false;
+    }
+
+    void shutdown() {
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendLoop() {
+        BatchDrainLoop.run(queue, batchSize, flushIntervalNanos, () -> running, this::send);
+    }
+
+    private void send(List<StatisticsPostResponseDto> batch) {
+        try {
+            batchConsumer.accept(List.copyOf(batch));
+        } catch (RuntimeException e) {
+            log.error("Не удалось отправить пачку из {} хитов в сервис статистики", batch.size(), e);
+        }
+    }
+}
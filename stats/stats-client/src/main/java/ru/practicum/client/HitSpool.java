@@ -0,0 +1,374 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import ru.practicum.dto.StatisticsPostResponseDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Локальный журнал хитов, не доставленных в сервис статистики: сегменты фиксированного размера, отображённые
+ * в память. Запись — копирование в отображённый буфер без ожидания сети; фоновый поток пачками переотправляет
+ * журнал, пока сервис снова не начнёт принимать хиты, и удаляет дочитанные сегменты.
+ * Объём на диске ограничен maxBytes: при заполнении новые хиты отбрасываются.
+ * Метрики: stats.client.spool.backlog, stats.client.spool.size, stats.client.spool.replayed, stats.client.spool.dropped.
+ */
+@Slf4j
+class HitSpool {
+    /* заголовок сегмента: смещение первой непереотправленной записи и резерв */
+    private static final int HEADER_SIZE = 8;
+    private static final int LENGTH_SIZE = Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String LOCK_FILE = "spool.lock";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int batchSize;
+    private final ObjectMapper objectMapper;
+    private final Predicate<List<StatisticsPostResponseDto>> sender;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final AtomicLong backlog = new AtomicLong();
+    private final ScheduledExecutorService replayer;
+    private final FileChannel lockChannel;
+    @Nullable
+    private final Counter replayed;
+    @Nullable
+    private final Counter dropped;
+
+    private long nextSequence;
+    private boolean full;
+
+    /**
+     * @param sender отправляет пачку; false — сервис недоступен, пачка остаётся в журнале
+     */
+    HitSpool(Path directory, long segmentSize, long maxBytes, int batchSize, long replayIntervalMillis,
+             ObjectMapper objectMapper, Predicate<List<StatisticsPostResponseDto>> sender,
+             @Nullable MeterRegistry registry) {
+        if (segmentSize <= HEADER_SIZE + LENGTH_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("stats.client.spool.segment-size вне допустимого диапазона: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize;
+        this.maxSegments = (int) Math.max(1, maxBytes / segmentSize);
+        this.batchSize = batchSize;
+        this.objectMapper = objectMapper;
+        this.sender = sender;
+        this.lockChannel = lock(directory);
+        recover();
+        if (registry != null) {
+            Gauge.builder("stats.client.spool.backlog", backlog, AtomicLong::get)
+                    .description("Хиты в локальном журнале, ожидающие отправки")
+                    .register(registry);
+            Gauge.builder("stats.client.spool.size", this, HitSpool::sizeBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+            this.replayed = Counter.builder("stats.client.spool.replayed").register(registry);
+            this.dropped = Counter.builder("stats.client.spool.dropped").register(registry);
+        } else {
+            this.replayed = null;
+            this.dropped = null;
+        }
+        this.replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-spool-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replayer.scheduleWithFixedDelay(this::replay, replayIntervalMillis, replayIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    boolean isEmpty() {
+        return backlog.get() == 0;
+    }
+
+    /**
+     * Дописывает хиты в журнал.
+     *
+     * @return число записанных хитов; остальные отброшены из-за лимита объёма
+     */
+    synchronized int append(List<StatisticsPostResponseDto> hits) {
+        int written = 0;
+        for (StatisticsPostResponseDto hit : hits) {
+            if (append(serialize(hit))) {
+                written++;
+            }
+        }
+        backlog.addAndGet(written);
+        if (written < hits.size()) {
+            if (dropped != null) {
+                dropped.increment(hits.size() - written);
+            }
+            if (!full) {
+                full = true;
+                log.warn("Локальный журнал хитов заполнен ({} сегментов), новые хиты отбрасываются", maxSegments);
+            }
+        }
+        return written;
+    }
+
+    void shutdown() {
+        replayer.shutdownNow();
+        try {
+            replayer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            segments.forEach(segment -> segment.buffer.force());
+        }
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось снять блокировку локального журнала {}", directory, e);
+        }
+    }
+
+    private boolean append(byte[] record) {
+        if (record.length > segmentSize - HEADER_SIZE - LENGTH_SIZE) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.writePosition + LENGTH_SIZE + record.length > segmentSize) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            tail = createSegment();
+        }
+        /* длина пишется последней: оборванная на середине запись читается как конец сегмента */
+        tail.buffer.put(tail.writePosition + LENGTH_SIZE, record);
+        tail.buffer.putInt(tail.writePosition, record.length);
+        tail.writePosition += LENGTH_SIZE + record.length;
+        full = false;
+        return true;
+    }
+
+    private void replay() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Batch batch = peekBatch();
+                if (batch == null) {
+                    return;
+                }
+                if (!batch.hits.isEmpty() && !sender.test(batch.hits)) {
+                    return;
+                }
+                commit(batch);
+                if (replayed != null) {
+                    replayed.increment(batch.hits.size());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Ошибка переотправки хитов из локального журнала", e);
+        }
+    }
+
+    @Nullable
+    private synchronized Batch peekBatch() {
+        Segment head = segments.peekFirst();
+        while (head != null && head.readPosition >= head.writePosition && head != segments.peekLast()) {
+            deleteHead();
+            head = segments.peekFirst();
+        }
+        if (head == null || head.readPosition >= head.writePosition) {
+            return null;
+        }
+        List<StatisticsPostResponseDto> hits = new ArrayList<>(batchSize);
+        int records = 0;
+        int position = head.readPosition;
+        while (records < batchSize && position < head.writePosition) {
+            int length = head.buffer.getInt(position);
+            byte[] record = new byte[length];
+            head.buffer.get(position + LENGTH_SIZE, record);
+            position += LENGTH_SIZE + length;
+            records++;
+            StatisticsPostResponseDto hit = deserialize(record);
+            if (hit != null) {
+                hits.add(hit);
+            }
+        }
+        return new Batch(head, position, records, hits);
+    }
+
+    private synchronized void commit(Batch batch) {
+        batch.segment.readPosition = batch.endPosition;
+        batch.segment.buffer.putInt(0, batch.endPosition);
+        backlog.addAndGet(-batch.records);
+        if (batch.segment.readPosition >= batch.segment.writePosition && batch.segment != segments.peekLast()) {
+            deleteHead();
+        }
+    }
+
+    private void deleteHead() {
+        Segment head = segments.pollFirst();
+        try {
+            Files.deleteIfExists(head.path);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить сегмент журнала {}", head.path, e);
+        }
+    }
+
+    private long sizeBytes() {
+        synchronized (this) {
+            return (long) segments.size() * segmentSize;
+        }
+    }
+
+    /**
+     * Один каталог — один процесс: два журнала в общем каталоге перетирали бы сегменты друг друга.
+     */
+    private static FileChannel lock(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            if (channel.tryLock() == null) {
+                channel.close();
+                throw new IllegalStateException("Локальный журнал хитов " + directory + " занят другим процессом");
+            }
+            return channel;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть локальный журнал хитов " + directory, e);
+        }
+    }
+
+    /**
+     * Поднимает сегменты, оставшиеся от прошлого запуска: непереотправленные хиты уйдут первыми.
+     */
+    private void recover() {
+        try {
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                                && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .sorted()
+                        .toList();
+            }
+            for (Path file : files) {
+                Segment segment = Segment.open(file, segmentSize);
+                nextSequence = Math.max(nextSequence, sequenceOf(file) + 1);
+                if (segment.readPosition >= segment.writePosition) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                segments.addLast(segment);
+                backlog.addAndGet(segment.countRecords());
+            }
+            if (backlog.get() > 0) {
+                log.info("В локальном журнале найдено {} неотправленных хитов", backlog.get());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть локальный журнал хитов " + directory, e);
+        }
+    }
+
+    private Segment createSegment() {
+        Path file = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        try {
+            Segment segment = Segment.open(file, segmentSize);
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать сегмент журнала " + file, e);
+        }
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private byte[] serialize(StatisticsPostResponseDto hit) {
+        try {
+            return objectMapper.writeValueAsBytes(hit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка сериализации хита", e);
+        }
+    }
+
+    /* повреждённая запись пропускается, иначе она навсегда остановила бы переотправку журнала */
+    @Nullable
+    private StatisticsPostResponseDto deserialize(byte[] record) {
+        try {
+            return objectMapper.readValue(record, StatisticsPostResponseDto.class);
+        } catch (IOException e) {
+            log.warn("Повреждённая запись в локальном журнале хитов пропущена", e);
+            return null;
+        }
+    }
+
+    private record Batch(Segment segment, int endPosition, int records, List<StatisticsPostResponseDto> hits) {
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int readPosition;
+        private int writePosition;
+
+        private Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, int size) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            Segment segment = new Segment(path, buffer);
+            int read = buffer.getInt(0);
+            segment.readPosition = read < HEADER_SIZE || read > size ? HEADER_SIZE : read;
+            segment.writePosition = segment.scanEnd();
+            segment.readPosition = Math.min(segment.readPosition, segment.writePosition);
+            return segment;
+        }
+
+        /* конец записанных данных: первая нулевая или не помещающаяся в сегмент длина */
+        private int scanEnd() {
+            int position = HEADER_SIZE;
+            while (position + LENGTH_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + LENGTH_SIZE + length > buffer.capacity()) {
+                    break;
+                }
+                position += LENGTH_SIZE + length;
+            }
+            return position;
+        }
+
+        private long countRecords() {
+            long count = 0;
+            for (int position = readPosition; position < writePosition; count++) {
+                position += LENGTH_SIZE + buffer.getInt(position);
+            }
+            return count;
+        }
+    }
+}
@@ -1,42 +1,89 @@
 package ru.practicum.client;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
-import org.springframework.retry.backoff.FixedBackOffPolicy;
-import org.springframework.retry.policy.MaxAttemptsRetryPolicy;
-import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.dto.StatisticsGetResponseDto;
 import ru.practicum.dto.StatisticsPostResponseDto;
+import ru.practicum.dto.ViewsRequestDto;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+@Slf4j
 @Component
 public class StatsClient {
-    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String EVENT_URI_PREFIX = "/events/";
 
     private final RestTemplate restTemplate;
-    private final DiscoveryClient discoveryClient;
-    private final RetryTemplate retryTemplate;
-    private final String statsServiceId;
+    private final StatsInstanceResolver instanceResolver;
+    private final ObjectMapper objectMapper;
+    @Nullable
+    private final HitBatchSender hitBatchSender;
+    @Nullable
+    private final HitSpool hitSpool;
+    private final ViewCountCache viewCountCache;
 
     public StatsClient(RestTemplateBuilder restTemplateBuilder,
-                       DiscoveryClient discoveryClient,
-                       @Value("${stats.service-id:stats-server}") String statsServiceId) {
-        this.restTemplate = restTemplateBuilder.build();
-        this.discoveryClient = discoveryClient;
-        this.statsServiceId = statsServiceId;
-        this.retryTemplate = createRetryTemplate();
+                       StatsHttpTransport httpTransport,
+                       StatsInstanceResolver instanceResolver,
+                       ObjectMapper objectMapper,
+                       @Value("${stats.client.batching.enabled:false}") boolean batchingEnabled,
+                       @Value("${stats.client.batching.queue-capacity:10000}") int batchQueueCapacity,
+                       @Value("${stats.client.batching.batch-size:200}") int batchSize,
+                       @Value("${stats.client.batching.flush-interval-ms:500}") long batchFlushIntervalMillis,
+                       @Value("${stats.client.spool.enabled:false}") boolean spoolEnabled,
+                       @Value("${stats.client.spool.dir:${java.io.tmpdir}/stats-spool/${spring.application.name:app}}")
+                       Path spoolDir,
+                       @Value("${stats.client.spool.segment-size:8MB}") DataSize spoolSegmentSize,
+                       @Value("${stats.client.spool.max-size:256MB}") DataSize spoolMaxSize,
+                       @Value("${stats.client.spool.batch-size:500}") int spoolBatchSize,
+                       @Value("${stats.client.spool.replay-interval-ms:1000}") long spoolReplayIntervalMillis,
+                       ViewCountCache viewCountCache,
+                       ObjectProvider<MeterRegistry> meterRegistry) {
+        this.restTemplate = restTemplateBuilder.requestFactory(httpTransport::requestFactory).build();
+        this.instanceResolver = instanceResolver;
+        this.objectMapper = objectMapper;
+        this.hitSpool = spoolEnabled
+                ? new HitSpool(spoolDir, spoolSegmentSize.toBytes(), spoolMaxSize.toBytes(), spoolBatchSize,
+                spoolReplayIntervalMillis, objectMapper, hits -> trySendHits("/hits", gzipHeaders(), gzipJson(hits)),
+                meterRegistry.getIfAvailable())
+                : null;
+        this.hitBatchSender = batchingEnabled
+                ? new HitBatchSender(this::sendBatch, batchQueueCapacity, batchSize, batchFlushIntervalMillis)
+                : null;
+        this.viewCountCache = viewCountCache;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hitBatchSender != null) {
+            hitBatchSender.shutdown();
+        }
+        if (hitSpool != null) {
+            hitSpool.shutdown();
+        }
     }
 
     public List<StatisticsGetResponseDto> getStats(LocalDateTime startTime, LocalDateTime endTime,
@@ -61,51 +108,147 @@ public class StatsClient {
     }
 
     public ResponseEntity<String> postHit(StatisticsPostResponseDto hit) {
-        return makeAndSendPostHitRequest(HttpMethod.POST, "/hit", null, hit);
+        if (hitBatchSender != null) {
+            hitBatchSender.enqueue(hit);
+            return ResponseEntity.accepted().build();
+        }
+        if (hitSpool != null) {
+            /* пока журнал не пуст, сервис считается недоступным: хит не ждёт таймаута и не обгоняет журнал */
+            if (hitSpool.isEmpty() && trySendHits("/hit", defaultHeaders(), hit)) {
+                invalidateViews(hit);
+                return ResponseEntity.status(HttpStatus.CREATED).build();
+            }
+            hitSpool.append(List.of(hit));
+            return ResponseEntity.accepted().build();
+        }
+        ResponseEntity<String> response = makeAndSendPostHitRequest(HttpMethod.POST, "/hit", defaultHeaders(), null, hit);
+        invalidateViews(hit);
+        return response;
     }
 
+    public ResponseEntity<String> postHits(List<StatisticsPostResponseDto> hits) {
+        return makeAndSendPostHitRequest(HttpMethod.POST, "/hits", gzipHeaders(), null, gzipJson(hits));
+    }
 
-    private <T> List<StatisticsGetResponseDto> makeAndSendGetStatsRequest(HttpMethod method, String path,
-                                                                          @Nullable Map<String, Object> parameters,
-                                                                          @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders());
+    /**
+     * Просмотры событий из пачки сбрасываются только после отправки: до неё сервис ещё не знает об этих хитах.
+     */
+    private void sendBatch(List<StatisticsPostResponseDto> hits) {
+        if (hitSpool == null) {
+            postHits(hits);
+        } else if (!hitSpool.isEmpty() || !trySendHits("/hits", gzipHeaders(), gzipJson(hits))) {
+            hitSpool.append(hits);
+            return;
+        }
+        hits.forEach(this::invalidateViews);
+    }
 
-        ResponseEntity<List<StatisticsGetResponseDto>> ewmServerResponse;
+    /**
+     * Отправляет хиты с различением причин отказа.
+     *
+     * @return false, если сервис недоступен или ответил 5xx и хиты стоит отложить в журнал; хиты, отклонённые
+     * с 4xx, повторять бессмысленно, они считаются обработанными
+     */
+    private boolean trySendHits(String path, HttpHeaders headers, Object body) {
         try {
-            String uriTemplate = makeUriString(path);
-            if (parameters != null) {
-                ewmServerResponse = restTemplate.exchange(uriTemplate, method, requestEntity,
-                        new ParameterizedTypeReference<List<StatisticsGetResponseDto>>() {
-                        }, parameters);
-            } else {
-                ewmServerResponse = restTemplate.exchange(uriTemplate, method, requestEntity,
-                        new ParameterizedTypeReference<List<StatisticsGetResponseDto>>() {
-                        });
-            }
+            doExchange(HttpMethod.POST, path, headers, null, body, new ParameterizedTypeReference<String>() {
+            });
+            return true;
+        } catch (StatsServerUnavailable e) {
+            return false;
         } catch (HttpStatusCodeException e) {
-            return null;
+            if (e.getStatusCode().is5xxServerError()) {
+                return false;
+            }
+            log.warn("Сервис статистики отклонил хиты: {} {}", e.getStatusCode(), e.getResponseBodyAsString());
+            return true;
         }
-        return ewmServerResponse.getBody();
     }
 
-    private <T> ResponseEntity<String> makeAndSendPostHitRequest(HttpMethod method, String path,
+
+    private <T> List<StatisticsGetResponseDto> makeAndSendGetStatsRequest(HttpMethod method, String path,
+                                                                          @Nullable Map<String, Object> parameters,
+                                                                          @Nullable T body) {
+        ResponseEntity<List<StatisticsGetResponseDto>> ewmServerResponse = exchange(method, path, defaultHeaders(),
+                parameters, body, new ParameterizedTypeReference<>() {
+                });
+        return ewmServerResponse != null ? ewmServerResponse.getBody() : null;
+    }
+
+    private <T> ResponseEntity<String> makeAndSendPostHitRequest(HttpMethod method, String path, HttpHeaders headers,
                                                                  @Nullable Map<String, Object> parameters,
                                                                  @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders());
+        return exchange(method, path, headers, parameters, body, new ParameterizedTypeReference<>() {
+        });
+    }
+
+    /**
+     * Отправляет запрос на выбранный экземпляр сервиса статистики.
+     *
+     * @return ответ или null, если сервис недоступен или ответил ошибкой
+     */
+    @Nullable
+    private <T, R> ResponseEntity<R> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                              @Nullable Map<String, Object> parameters, @Nullable T body,
+                                              ParameterizedTypeReference<R> responseType) {
+        try {
+            return doExchange(method, path, headers, parameters, body, responseType);
+        } catch (StatsServerUnavailable | HttpStatusCodeException e) {
+            return null;
+        }
+    }
 
-        ResponseEntity<String> ewmServerResponse;
+    /**
+     * @throws StatsServerUnavailable нет доступных экземпляров или выбранный экземпляр не ответил
+     * @throws HttpStatusCodeException сервис ответил ошибкой
+     */
+    private <T, R> ResponseEntity<R> doExchange(HttpMethod method, String path, HttpHeaders headers,
+                                                @Nullable Map<String, Object> parameters, @Nullable T body,
+                                                ParameterizedTypeReference<R> responseType) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
+        StatsInstanceResolver.Lease lease = instanceResolver.acquire();
         try {
-            String uriTemplate = makeUriString(path);
+            String uriTemplate = lease.baseUrl() + path;
             if (parameters != null) {
-                ewmServerResponse = restTemplate.exchange(uriTemplate, method, requestEntity, String.class, parameters);
+                return restTemplate.exchange(uriTemplate, method, requestEntity, responseType, parameters);
             }
-            else{
-                ewmServerResponse = restTemplate.exchange(uriTemplate, method, requestEntity, String.class);
+            return restTemplate.exchange(uriTemplate, method, requestEntity, responseType);
+        } catch (ResourceAccessException e) {
+            if (isConnectFailure(e)) {
+                lease.markFailed();
             }
-        } catch (HttpStatusCodeException e) {
-            return null;
+            throw new StatsServerUnavailable("Сервис статистики не ответил: " + lease.baseUrl(), e);
+        } finally {
+            lease.release();
+        }
+    }
+
+    /**
+     * Экземпляр не принял соединение; таймаут чтения означает медленный, но живой сервис.
+     */
+    private static boolean isConnectFailure(ResourceAccessException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] gzipJson(Object body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка сериализации пачки хитов", e);
         }
-        return ewmServerResponse;
+        return bytes.toByteArray();
+    }
+
+    private HttpHeaders gzipHeaders() {
+        HttpHeaders headers = defaultHeaders();
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return headers;
     }
 
     private HttpHeaders defaultHeaders() {
@@ -119,55 +262,47 @@ public class StatsClient {
         if (eventsId == null || eventsId.isEmpty()) {
             return new HashMap<>();
         }
-        /*составляем список URI событий из подборки*/
-        List<String> eventUris = eventsId.stream()
-                .map(i -> "/events/" + i)
-                .collect(Collectors.toList()); //преобразовали список событий в список URI
-
-        String[] uriArray = new String[eventUris.size()]; //создали массив строк
-        eventUris.toArray(uriArray); //заполнили массив строками из списка URI
-
-        /*запрашиваем у клиента статистики данные по нужным URI*/
-        List<StatisticsGetResponseDto> statisticsList = getStats(LocalDateTime.of(1970, 1, 1, 1, 1), LocalDateTime.now(), uriArray, true);
-        if (statisticsList == null || statisticsList.isEmpty()) { //если нет статистики по эндпоинтам, возвращаем мапу с нулевыми просмотрами
-            return eventsId.stream()
-                    .collect(Collectors.toMap(e -> e, e -> 0L));
-        }
-        /*превращаем список EndpointStats в мапу <id события, кол-во просмотров>*/
-        return statisticsList.stream().collect(Collectors.toMap(e -> {
-                    String[] splitUri = e.getUri().split("/"); //делим URI /events/1
-                    Arrays.asList(splitUri).forEach(s -> System.out.println("idViewsMap + elements+///+ " + s));
-                    return Long.valueOf(splitUri[splitUri.length - 1]); //берем последний элемент разбитой строки - это id
-                },
-                StatisticsGetResponseDto::getHits));
+        return viewCountCache.getAll(eventsId, this::loadViews);
     }
 
-    private ServiceInstance getInstance() {
-        try {
-            return discoveryClient.getInstances(statsServiceId).getFirst();
-        } catch (Exception exception) {
-            throw new StatsServerUnavailable(
-                    "Ошибка обнаружения адреса сервиса статистики с id: " + statsServiceId,
-                    exception
-            );
-        }
+    /**
+     * Просмотры мимо кэша; в отличие от getMapIdViews, отказ сервиса не подменяется нулями.
+     *
+     * @return мапа id события → просмотры или null, если сервис статистики недоступен или ответил ошибкой
+     */
+    @Nullable
+    public Map<Long, Long> loadViews(Collection<Long> eventsId) {
+        ResponseEntity<Map<Long, Long>> response = exchange(HttpMethod.POST, "/views", defaultHeaders(), null,
+                viewsRequest(eventsId), new ParameterizedTypeReference<>() {
+                });
+        return response != null ? response.getBody() : null;
     }
 
-    private String makeUriString(String path) {
-        ServiceInstance instance = retryTemplate.execute(context -> getInstance());
-        return "http://" + instance.getHost() + ":" + instance.getPort() + path;
+    static ViewsRequestDto viewsRequest(Collection<Long> eventsId) {
+        return ViewsRequestDto.builder()
+                .ids(List.copyOf(eventsId))
+                .uriPrefix(EVENT_URI_PREFIX)
+                .unique(true)
+                .build();
     }
 
-    private RetryTemplate createRetryTemplate() {
-        RetryTemplate template = new RetryTemplate();
-
-        FixedBackOffPolicy fixedBackOffPolicy = new FixedBackOffPolicy();
-        fixedBackOffPolicy.setBackOffPeriod(3000L);
-        template.setBackOffPolicy(fixedBackOffPolicy);
+    /* свой хит должен сразу отражаться в просмотрах события, не дожидаясь истечения TTL */
+    private void invalidateViews(StatisticsPostResponseDto hit) {
+        Long eventId = parseEventId(hit.getUri());
+        if (eventId != null) {
+            viewCountCache.invalidate(eventId);
+        }
+    }
 
-        MaxAttemptsRetryPolicy retryPolicy = new MaxAttemptsRetryPolicy();
-        retryPolicy.setMaxAttempts(3);
-        template.setRetryPolicy(retryPolicy);
-        return template;
+    @Nullable
+    static Long parseEventId(@Nullable String uri) {
+        if (uri == null || !uri.startsWith(EVENT_URI_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(uri.substring(EVENT_URI_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Пул HTTP-соединений к сервису статистики: лимиты на маршрут, таймауты, keep-alive и вытеснение простаивающих.
+ * Соединение старше connection-ttl закрывается даже под нагрузкой, чтобы новые экземпляры сервиса получали трафик.
+ * Загрузка пула публикуется в Micrometer как httpcomponents.httpclient.pool.* с тегом httpclient=stats-client.
+ */
+@Component
+public class StatsHttpTransport {
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final HttpComponentsClientHttpRequestFactory requestFactory;
+
+    public StatsHttpTransport(@Value("${stats.client.http.max-connections:50}") int maxConnections,
+                              @Value("${stats.client.http.max-connections-per-route:20}") int maxPerRoute,
+                              @Value("${stats.client.http.connect-timeout:1s}") Duration connectTimeout,
+                              @Value("${stats.client.http.read-timeout:3s}") Duration readTimeout,
+                              @Value("${stats.client.http.pool-acquire-timeout:500ms}") Duration poolAcquireTimeout,
+                              @Value("${stats.client.http.idle-timeout:30s}") Duration idleTimeout,
+                              @Value("${stats.client.http.keep-alive:30s}") Duration keepAlive,
+                              @Value("${stats.client.http.connection-ttl:5m}") Duration connectionTtl,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .build())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .build();
+        this.requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "stats-client").bindTo(registry);
+        }
+    }
+
+    public ClientHttpRequestFactory requestFactory() {
+        return requestFactory;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.client;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Список экземпляров сервиса статистики, обновляемый в фоне из discovery, и выбор экземпляра на запрос:
+ * по кругу (ROUND_ROBIN) или с наименьшим числом незавершённых запросов (LEAST_OUTSTANDING).
+ * Поток запроса никогда не ждёт discovery: список читается синхронно один раз при создании, дальше обновляется
+ * в фоне; при пустом списке запрос сразу получает StatsServerUnavailable. Экземпляр, к которому не удалось
+ * подключиться, пропускается при выборе на время instance-backoff.
+ */
+@Slf4j
+@Component
+public class StatsInstanceResolver {
+    private final DiscoveryClient discoveryClient;
+    private final String statsServiceId;
+    private final Strategy strategy;
+    private final ScheduledExecutorService refresher;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final Map<String, AtomicInteger> outstanding = new ConcurrentHashMap<>();
+    /* ключ экземпляра → System.nanoTime(), до которого он пропускается при выборе */
+    private final Map<String, Long> backoffUntil = new ConcurrentHashMap<>();
+    private final long backoffNanos;
+
+    private volatile List<ServiceInstance> instances = List.of();
+
+    public StatsInstanceResolver(DiscoveryClient discoveryClient,
+                                 @Value("${stats.service-id:stats-server}") String statsServiceId,
+                                 @Value("${stats.client.load-balancer:ROUND_ROBIN}") Strategy strategy,
+                                 @Value("${stats.client.discovery.refresh-interval-ms:10000}") long refreshIntervalMillis,
+                                 @Value("${stats.client.instance-backoff:1s}") Duration backoff) {
+        this.discoveryClient = discoveryClient;
+        this.statsServiceId = statsServiceId;
+        this.strategy = strategy;
+        this.backoffNanos = backoff.toNanos();
+        refresh();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-instance-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    public Lease acquire() {
+        long now = System.nanoTime();
+        List<ServiceInstance> current = instances.stream()
+                .filter(i -> now - backoffUntil.getOrDefault(key(i), now) >= 0)
+                .toList();
+        if (current.isEmpty()) {
+            throw new StatsServerUnavailable(
+                    "Нет доступных экземпляров сервиса статистики с id: " + statsServiceId, null);
+        }
+        ServiceInstance instance = strategy == Strategy.LEAST_OUTSTANDING
+                ? current.stream().min(Comparator.comparingInt(i -> counter(i).get())).orElseThrow()
+                : current.get(Math.floorMod(roundRobin.getAndIncrement(), current.size()));
+        counter(instance).incrementAndGet();
+        return new Lease(instance);
+    }
+
+    private void refresh() {
+        try {
+            List<ServiceInstance> discovered = discoveryClient.getInstances(statsServiceId);
+            instances = List.copyOf(discovered);
+            List<String> keys = discovered.stream().map(StatsInstanceResolver::key).toList();
+            outstanding.keySet().retainAll(keys);
+            backoffUntil.keySet().retainAll(keys);
+        } catch (Exception exception) {
+            log.warn("Ошибка обнаружения адреса сервиса статистики с id: {}", statsServiceId, exception);
+        }
+    }
+
+    private AtomicInteger counter(ServiceInstance instance) {
+        return outstanding.computeIfAbsent(key(instance), id -> new AtomicInteger());
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        LEAST_OUTSTANDING
+    }
+
+    /**
+     * Выбранный экземпляр на время одного запроса; release() обязателен, markFailed() исключает экземпляр
+     * из выбора на время instance-backoff. Вызывается только при отказе в соединении: медленный ответ
+     * работающего экземпляра не повод уводить с него трафик.
+     */
+    public class Lease {
+        private final ServiceInstance instance;
+
+        private Lease(ServiceInstance instance) {
+            this.instance = instance;
+        }
+
+        public String baseUrl() {
+            return "http://" + instance.getHost() + ":" + instance.getPort();
+        }
+
+        public void release() {
+            counter(instance).decrementAndGet();
+        }
+
+        public void markFailed() {
+            backoffUntil.put(key(instance), System.nanoTime() + backoffNanos);
+        }
+    }
+}
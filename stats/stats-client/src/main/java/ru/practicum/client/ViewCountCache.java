@@ -0,0 +1,101 @@
+package ru.practicum.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Кэш числа просмотров по id события, общий для StatsClient и AsyncStatsClient. Промахи догружаются одним
+ * общим запросом к сервису статистики; результат неудачного запроса не кэшируется.
+ * Метрики попаданий, промахов и вытеснений — stats.views.cache.*. При выключенном кэше всё идёт в загрузчик.
+ */
+@Component
+class ViewCountCache {
+    @Nullable
+    private final Cache<Long, Long> cache;
+
+    ViewCountCache(@Value("${stats.client.views-cache.enabled:false}") boolean enabled,
+                   @Value("${stats.client.views-cache.ttl:5s}") Duration ttl,
+                   @Value("${stats.client.views-cache.max-size:10000}") long maxSize,
+                   ObjectProvider<MeterRegistry> meterRegistry) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, "stats.views.cache");
+        }
+    }
+
+    /**
+     * @param loader загружает просмотры для недостающих id; возвращает null при ошибке сервиса статистики
+     */
+    Map<Long, Long> getAll(Collection<Long> eventIds, Function<Set<Long>, Map<Long, Long>> loader) {
+        Map<Long, Long> result = getAllPresent(eventIds);
+        Set<Long> missing = missing(eventIds, result);
+        if (missing.isEmpty()) {
+            return result;
+        }
+        return merge(result, missing, loader.apply(missing));
+    }
+
+    /**
+     * Асинхронный вариант getAll: загрузчик возвращает future, завершающуюся null при ошибке сервиса статистики.
+     */
+    CompletableFuture<Map<Long, Long>> getAllAsync(Collection<Long> eventIds,
+                                                   Function<Set<Long>, CompletableFuture<Map<Long, Long>>> loader) {
+        Map<Long, Long> result = getAllPresent(eventIds);
+        Set<Long> missing = missing(eventIds, result);
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return loader.apply(missing).thenApply(loaded -> merge(result, missing, loaded));
+    }
+
+    void invalidate(Long eventId) {
+        if (cache != null) {
+            cache.invalidate(eventId);
+        }
+    }
+
+    private Map<Long, Long> getAllPresent(Collection<Long> eventIds) {
+        return cache == null ? new HashMap<>() : new HashMap<>(cache.getAllPresent(eventIds));
+    }
+
+    private static Set<Long> missing(Collection<Long> eventIds, Map<Long, Long> present) {
+        Set<Long> missing = new HashSet<>(eventIds);
+        missing.removeAll(present.keySet());
+        return missing;
+    }
+
+    private Map<Long, Long> merge(Map<Long, Long> result, Set<Long> missing, @Nullable Map<Long, Long> loaded) {
+        if (loaded == null) { //если сервис статистики недоступен, недостающие события получают нулевые просмотры
+            missing.forEach(id -> result.put(id, 0L));
+            return result;
+        }
+        for (Long id : missing) {
+            long views = loaded.getOrDefault(id, 0L);
+            if (cache != null) {
+                cache.put(id, views);
+            }
+            result.put(id, views);
+        }
+        return result;
+    }
+}
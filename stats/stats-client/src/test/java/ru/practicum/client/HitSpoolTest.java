@@ -0,0 +1,200 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.dto.StatisticsPostResponseDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitSpoolTest {
+    private static final int SEGMENT_SIZE = 4096;
+    private static final int HEADER_SIZE = 8;
+
+    @TempDir
+    Path directory;
+
+    private final List<HitSpool> opened = new ArrayList<>();
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        opened.forEach(HitSpool::shutdown);
+    }
+
+    @Test
+    void undeliveredHitsAreReplayedAfterRestart() {
+        HitSpool spool = open(hits -> false, 10);
+        spool.append(List.of(hit("/events/1"), hit("/events/2")));
+        spool.append(List.of(hit("/events/3")));
+        close(spool);
+
+        HitSpool recovered = open(this::deliver, 10);
+
+        assertThat(recovered.isEmpty()).isFalse();
+        await(recovered::isEmpty);
+        assertThat(delivered).containsExactly("/events/1", "/events/2", "/events/3");
+    }
+
+    @Test
+    void tornRecordAtTailIsTreatedAsEndOfSegment() throws IOException {
+        HitSpool spool = open(hits -> false, 10);
+        spool.append(List.of(hit("/events/1"), hit("/events/2")));
+        close(spool);
+        /* обрыв до записи длины: байты записи есть, длины ещё нет */
+        Path segment = singleSegment();
+        int end = endOfRecords(segment);
+        writeAt(segment, end + Integer.BYTES, "{\"app\":\"ewm\",\"uri\":\"/events/3\"".getBytes(StandardCharsets.UTF_8));
+
+        HitSpool recovered = open(this::deliver, 10);
+
+        await(recovered::isEmpty);
+        assertThat(delivered).containsExactly("/events/1", "/events/2");
+    }
+
+    @Test
+    void lengthPointingPastSegmentEndIsIgnored() throws IOException {
+        HitSpool spool = open(hits -> false, 10);
+        spool.append(List.of(hit("/events/1")));
+        close(spool);
+        Path segment = singleSegment();
+        writeAt(segment, endOfRecords(segment), ByteBuffer.allocate(Integer.BYTES).putInt(SEGMENT_SIZE).array());
+
+        HitSpool recovered = open(this::deliver, 10);
+
+        await(recovered::isEmpty);
+        assertThat(delivered).containsExactly("/events/1");
+    }
+
+    @Test
+    void corruptedRecordIsSkippedAndReplayContinues() throws IOException {
+        HitSpool spool = open(hits -> false, 10);
+        spool.append(List.of(hit("/events/1"), hit("/events/2"), hit("/events/3")));
+        close(spool);
+        Path segment = singleSegment();
+        int second = HEADER_SIZE + Integer.BYTES + readInt(segment, HEADER_SIZE);
+        writeAt(segment, second + Integer.BYTES, "#".getBytes(StandardCharsets.UTF_8));
+
+        HitSpool recovered = open(this::deliver, 10);
+
+        await(recovered::isEmpty);
+        assertThat(delivered).containsExactly("/events/1", "/events/3");
+    }
+
+    @Test
+    void replayResumesAfterLastCommittedBatch() {
+        HitSpool spool = open(hits -> false, 2);
+        spool.append(List.of(hit("/events/1"), hit("/events/2"), hit("/events/3"), hit("/events/4")));
+        close(spool);
+        List<String> firstRun = new CopyOnWriteArrayList<>();
+        HitSpool partial = open(hits -> {
+            if (!firstRun.isEmpty()) {
+                return false;
+            }
+            hits.forEach(hit -> firstRun.add(hit.getUri()));
+            return true;
+        }, 2);
+        await(() -> firstRun.size() == 2);
+        close(partial);
+
+        HitSpool recovered = open(this::deliver, 2);
+
+        await(recovered::isEmpty);
+        assertThat(firstRun).containsExactly("/events/1", "/events/2");
+        assertThat(delivered).containsExactly("/events/3", "/events/4");
+    }
+
+    @Test
+    void fullyReplayedSegmentsAreDeletedOnRecovery() throws IOException {
+        HitSpool spool = open(this::deliver, 10);
+        spool.append(List.of(hit("/events/1")));
+        await(spool::isEmpty);
+        close(spool);
+
+        HitSpool recovered = open(this::deliver, 10);
+
+        assertThat(recovered.isEmpty()).isTrue();
+        assertThat(segments()).isEmpty();
+    }
+
+    private HitSpool open(Predicate<List<StatisticsPostResponseDto>> sender, int batchSize) {
+        HitSpool spool = new HitSpool(directory, SEGMENT_SIZE, 16L * SEGMENT_SIZE, batchSize, 20,
+                new ObjectMapper(), sender, null);
+        opened.add(spool);
+        return spool;
+    }
+
+    private void close(HitSpool spool) {
+        opened.remove(spool);
+        spool.shutdown();
+    }
+
+    private boolean deliver(List<StatisticsPostResponseDto> hits) {
+        hits.forEach(hit -> delivered.add(hit.getUri()));
+        return true;
+    }
+
+    private Path singleSegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.getFirst();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static int endOfRecords(Path segment) throws IOException {
+        int position = HEADER_SIZE;
+        int length;
+        while ((length = readInt(segment, position)) > 0) {
+            position += Integer.BYTES + length;
+        }
+        return position;
+    }
+
+    private static int readInt(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(buffer, position);
+            return buffer.flip().getInt();
+        }
+    }
+
+    private static void writeAt(Path file, int position, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Условие не выполнилось за 5 секунд");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static StatisticsPostResponseDto hit(String uri) {
+        return new StatisticsPostResponseDto("ewm", uri, "10.0.0.1", "2026-10-17 12:00:00");
+    }
+}
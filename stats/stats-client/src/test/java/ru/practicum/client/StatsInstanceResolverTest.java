@@ -0,0 +1,82 @@
+package ru.practicum.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatsInstanceResolverTest {
+    private static final ServiceInstance FIRST = new DefaultServiceInstance("a", "stats-server", "10.0.0.1", 9090, false);
+    private static final ServiceInstance SECOND = new DefaultServiceInstance("b", "stats-server", "10.0.0.2", 9090, false);
+
+    private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+    private StatsInstanceResolver resolver;
+
+    @AfterEach
+    void shutdown() {
+        resolver.shutdown();
+    }
+
+    @Test
+    void instancesAreAvailableRightAfterConstruction() {
+        when(discoveryClient.getInstances("stats-server")).thenReturn(List.of(FIRST));
+        resolver = resolver(Duration.ofSeconds(1));
+
+        StatsInstanceResolver.Lease lease = resolver.acquire();
+
+        assertThat(lease.baseUrl()).isEqualTo("http://10.0.0.1:9090");
+        lease.release();
+    }
+
+    @Test
+    void failedInstanceIsSkippedOnlyForBackoff() throws InterruptedException {
+        when(discoveryClient.getInstances("stats-server")).thenReturn(List.of(FIRST, SECOND));
+        resolver = resolver(Duration.ofMillis(200));
+        StatsInstanceResolver.Lease failed = resolver.acquire();
+        failed.markFailed();
+        failed.release();
+
+        for (int i = 0; i < 4; i++) {
+            StatsInstanceResolver.Lease lease = resolver.acquire();
+            assertThat(lease.baseUrl()).isNotEqualTo(failed.baseUrl());
+            lease.release();
+        }
+        Thread.sleep(250);
+
+        StatsInstanceResolver.Lease first = resolver.acquire();
+        StatsInstanceResolver.Lease second = resolver.acquire();
+        assertThat(List.of(first.baseUrl(), second.baseUrl())).contains(failed.baseUrl());
+        first.release();
+        second.release();
+    }
+
+    @Test
+    void singleFailedInstanceComesBackAfterBackoff() throws InterruptedException {
+        when(discoveryClient.getInstances("stats-server")).thenReturn(List.of(FIRST));
+        resolver = resolver(Duration.ofMillis(200));
+        StatsInstanceResolver.Lease failed = resolver.acquire();
+        failed.markFailed();
+        failed.release();
+
+        assertThatThrownBy(resolver::acquire).isInstanceOf(StatsServerUnavailable.class);
+        Thread.sleep(250);
+
+        StatsInstanceResolver.Lease lease = resolver.acquire();
+        assertThat(lease.baseUrl()).isEqualTo("http://10.0.0.1:9090");
+        lease.release();
+    }
+
+    private StatsInstanceResolver resolver(Duration backoff) {
+        return new StatsInstanceResolver(discoveryClient, "stats-server",
+                StatsInstanceResolver.Strategy.ROUND_ROBIN, 60_000, backoff);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Цикл фонового потока, который выбирает элементы из очереди и сбрасывает их пачками: как только набралось
+ * batchSize или истёк flushInterval с прошлого сброса. После остановки очередь дочищается теми же пачками.
+ */
+public final class BatchDrainLoop {
+    private BatchDrainLoop() {
+    }
+
+    /**
+     * Выполняется в вызывающем потоке, пока running возвращает true и поток не прерван.
+     *
+     * @param flush получает непустую пачку; после возврата список очищается и переиспользуется, поэтому хранить
+     *              его нельзя. Исключения flush должен обрабатывать сам
+     */
+    public static <T> void run(BlockingQueue<T> queue, int batchSize, long flushIntervalNanos,
+                               BooleanSupplier running, Consumer<List<T>> flush) {
+        List<T> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (running.getAsBoolean()) {
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    T item = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (item != null) {
+                        batch.add(item);
+                        queue.drainTo(batch, batchSize - batch.size());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (batch.size() >= batchSize || deadline - System.nanoTime() <= 0) {
+                flush(batch, flush);
+                deadline = System.nanoTime() + flushIntervalNanos;
+            }
+        }
+        while (queue.drainTo(batch, batchSize - batch.size()) > 0 || !batch.isEmpty()) {
+            flush(batch, flush);
+        }
+    }
+
+    private static <T> void flush(List<T> batch, Consumer<List<T>> flush) {
+        if (!batch.isEmpty()) {
+            flush.accept(batch);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Запрос просмотров по id сущностей: сервер сам строит URI вида uriPrefix + id и возвращает мапу id → просмотры.
+ * start и end в формате yyyy-MM-dd HH:mm:ss; без них считается вся история по текущий момент.
+ */
+@Getter
+@Setter
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewsRequestDto {
+    @NotEmpty
+    List<@NotNull Long> ids;
+    @NotBlank
+    @Builder.Default
+    String uriPrefix = "/events/";
+    String app;
+    String start;
+    String end;
+    @Builder.Default
+    boolean unique = true;
+}
@@ -20,10 +20,11 @@ public class Statistics {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
 
-    @Column(name = "app", nullable = false)
+    /* в таблице хранятся ключами справочников stats_app и stats_uri, запись и чтение идут через JDBC */
+    @Transient
     String app;
 
-    @Column(name = "uri", nullable = false)
+    @Transient
     String uri;
 
     @Column(name = "ip", nullable = false)
@@ -1,21 +1,34 @@
 package ru.practicum.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.dto.StatisticsGetResponseDto;
 import ru.practicum.dto.StatisticsPostResponseDto;
+import ru.practicum.dto.ViewsRequestDto;
 import ru.practicum.service.StatServiceImpl;
+import ru.practicum.service.TrendingService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
 public class StatsController {
     private final StatServiceImpl statService;
+    private final TrendingService trendingService;
+    private final ObjectMapper objectMapper;
     private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
 
     @PostMapping("/hit")
@@ -24,13 +37,78 @@ public class StatsController {
         return statService.hit(statisticsPostResponseDto);
     }
 
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void hits(@RequestBody List<@Valid StatisticsPostResponseDto> statisticsPostResponseDtos) {
+        statService.hits(statisticsPostResponseDtos);
+    }
+
     @GetMapping("/stats")
     @ResponseStatus(HttpStatus.OK)
     public List<StatisticsGetResponseDto> getStats(
             @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime start,
             @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime end,
             @RequestParam(required = false) List<String> uris,
-            @RequestParam(defaultValue = "false") boolean unique) {
-        return statService.getStats(start, end, uris, unique);
+            @RequestParam(defaultValue = "false") boolean unique,
+            @RequestParam(defaultValue = "false") boolean exact,
+            @RequestParam(required = false) Integer limit) {
+        return statService.getStats(start, end, uris, unique, exact, limit);
+    }
+
+    /**
+     * Потоковая выдача /stats: строки пишутся в ответ по мере чтения из базы, память не зависит от числа URI.
+     * При Accept: application/x-ndjson каждая строка — отдельный JSON-объект, иначе — JSON-массив.
+     */
+    @GetMapping(value = "/stats", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamStats(
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "false") boolean unique,
+            @RequestParam(defaultValue = "false") boolean exact,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        /* ошибки параметров проверяются до начала записи, пока статус ответа ещё можно поменять */
+        statService.validateStatsRequest(start, end, limit);
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+        StreamingResponseBody body = out -> {
+            /* поток ответа закрывает контейнер, генератор только дописывает в него буфер */
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.setRootValueSeparator(null);
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                statService.streamStats(start, end, uris, unique, exact, limit, row -> {
+                    try {
+                        generator.writeObject(row);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping("/stats/trending")
+    @ResponseStatus(HttpStatus.OK)
+    public List<StatisticsGetResponseDto> getTrending(@RequestParam(defaultValue = "60") int window,
+                                                      @RequestParam(defaultValue = "10") int limit) {
+        return trendingService.getTrending(window, limit);
+    }
+
+    @PostMapping("/views")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<Long, Long> getViews(@Valid @RequestBody ViewsRequestDto viewsRequestDto) {
+        return statService.getViews(viewsRequestDto);
     }
 }
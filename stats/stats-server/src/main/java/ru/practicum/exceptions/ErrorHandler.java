@@ -9,6 +9,12 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 @Slf4j
 public class ErrorHandler {
+    @ExceptionHandler(IngestOverloadException.class)
+    public ResponseEntity<String> ingestOverloadHandle(IngestOverloadException e) {
+        log.warn("IngestOverloadException: {}", e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE); //503
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> unsupportedEncodingHandle(RuntimeException e) {
         log.debug("RuntimeException: {}", e.getMessage());
@@ -0,0 +1,7 @@
+package ru.practicum.exceptions;
+
+public class IngestOverloadException extends RuntimeException {
+    public IngestOverloadException(String message) {
+        super(message);
+    }
+}
@@ -27,8 +27,12 @@ public class StatMapper {
                 .uri(statisticsPostResponseDto.getUri())
                 .app(statisticsPostResponseDto.getApp())
                 .ip(statisticsPostResponseDto.getIp())
-                .timestamp(LocalDateTime.parse(statisticsPostResponseDto.getTimestamp(), TIME_FORMAT))
+                .timestamp(parseTime(statisticsPostResponseDto.getTimestamp()))
                 .build();
     }
 
+    public static LocalDateTime parseTime(String time) {
+        return LocalDateTime.parse(time, TIME_FORMAT);
+    }
+
 }
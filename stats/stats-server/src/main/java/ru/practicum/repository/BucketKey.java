@@ -0,0 +1,15 @@
+package ru.practicum.repository;
+
+import ru.practicum.service.TimeGranularity;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+public record BucketKey(TimeGranularity granularity, LocalDateTime bucketStart, int appId, int uriId) {
+    /* единый порядок ключей, чтобы параллельные upsert-ы не ловили взаимоблокировки */
+    public static final Comparator<BucketKey> ORDER = Comparator
+            .comparing(BucketKey::granularity)
+            .thenComparing(BucketKey::bucketStart)
+            .thenComparingInt(BucketKey::appId)
+            .thenComparingInt(BucketKey::uriId);
+}
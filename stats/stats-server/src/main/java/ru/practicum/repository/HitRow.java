@@ -0,0 +1,9 @@
+package ru.practicum.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Хит в том виде, в каком он хранится: app и uri заменены ключами справочников stats_app и stats_uri.
+ */
+public record HitRow(int appId, int uriId, String ip, LocalDateTime timestamp) {
+}
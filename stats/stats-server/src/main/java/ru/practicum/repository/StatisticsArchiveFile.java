@@ -0,0 +1,366 @@
+package ru.practicum.repository;
+
+import org.springframework.lang.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Колоночный файл хитов одной закрытой секции statistics: архив вне горячей таблицы и формат офлайн-аналитики.
+ * <p>
+ * Формат, целые big-endian, varint — беззнаковый LEB128:
+ * <pre>
+ *   int magic "STC1", long from, long to (секунды эпохи, время без зоны как UTC), int rows
+ *   словари app, uri, ip: varint n, затем n строк (varint длина, UTF-8)
+ *   колонка времени: rows varint-дельт в секундах от предыдущего хита, первого — от from; хиты упорядочены по времени
+ *   колонки app, uri, ip: rows varint-индексов в свои словари
+ *   int CRC32 всего предшествующего содержимого
+ * </pre>
+ */
+public final class StatisticsArchiveFile {
+    public static final String EXTENSION = ".stc";
+    private static final int MAGIC = 0x53544331;
+    private static final int HEADER_SIZE = Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final String[] apps;
+    private final String[] uris;
+    private final String[] ips;
+    /* секунды от from: секция не длиннее года, int хватает с запасом */
+    private final int[] times;
+    private final int[] appColumn;
+    private final int[] uriColumn;
+    private final int[] ipColumn;
+    private final Map<String, Integer> uriIndex;
+
+    private StatisticsArchiveFile(LocalDateTime from, LocalDateTime to, String[] apps, String[] uris, String[] ips,
+                                  int[] times, int[] appColumn, int[] uriColumn, int[] ipColumn) {
+        this.from = from;
+        this.to = to;
+        this.apps = apps;
+        this.uris = uris;
+        this.ips = ips;
+        this.times = times;
+        this.appColumn = appColumn;
+        this.uriColumn = uriColumn;
+        this.ipColumn = ipColumn;
+        this.uriIndex = new HashMap<>(uris.length * 2);
+        for (int i = 0; i < uris.length; i++) {
+            uriIndex.put(uris[i], i);
+        }
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public int getRows() {
+        return times.length;
+    }
+
+    public String app(int index) {
+        return apps[index];
+    }
+
+    public String uri(int index) {
+        return uris[index];
+    }
+
+    public String ip(int index) {
+        return ips[index];
+    }
+
+    /**
+     * Приблизительный объём в памяти, для ограничения кэша разобранных файлов.
+     */
+    public long weight() {
+        long strings = 0;
+        for (String[] dictionary : List.of(apps, uris, ips)) {
+            for (String value : dictionary) {
+                strings += 48 + value.length();
+            }
+        }
+        return strings + uris.length * 32L + times.length * 16L;
+    }
+
+    /**
+     * Обходит хиты интервала [start, end) или [start, end]; границы ищутся двоичным поиском по колонке времени.
+     *
+     * @param uriFilter только эти URI; null — все
+     */
+    public void forEachHit(LocalDateTime start, LocalDateTime end, boolean endInclusive,
+                           @Nullable Collection<String> uriFilter, HitVisitor visitor) {
+        long base = epochSecond(from);
+        int lower = lowerBound(epochSecond(start) - base);
+        int upper = lowerBound(epochSecond(end) - base + (endInclusive ? 1 : 0));
+        if (lower >= upper) {
+            return;
+        }
+        boolean[] wanted = null;
+        if (uriFilter != null && !uriFilter.isEmpty()) {
+            wanted = new boolean[uris.length];
+            boolean any = false;
+            for (String uri : uriFilter) {
+                Integer index = uriIndex.get(uri);
+                if (index != null) {
+                    wanted[index] = true;
+                    any = true;
+                }
+            }
+            if (!any) {
+                return;
+            }
+        }
+        for (int row = lower; row < upper; row++) {
+            int uri = uriColumn[row];
+            if (wanted == null || wanted[uri]) {
+                visitor.visit(appColumn[row], uri, ipColumn[row]);
+            }
+        }
+    }
+
+    private int lowerBound(long offset) {
+        if (offset <= 0) {
+            return 0;
+        }
+        if (offset > Integer.MAX_VALUE) {
+            return times.length;
+        }
+        int index = Arrays.binarySearch(times, (int) offset);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && times[index - 1] == offset) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Читает интервал секции из заголовка, не разбирая колонки.
+     *
+     * @return {from, to}
+     */
+    public static LocalDateTime[] readInterval(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // читаем заголовок целиком
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("Не архив статистики: " + path);
+            }
+            return new LocalDateTime[]{ofEpochSecond(header.getLong()), ofEpochSecond(header.getLong())};
+        }
+    }
+
+    public static StatisticsArchiveFile read(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < HEADER_SIZE + Integer.BYTES) {
+            throw new IOException("Архив статистики обрезан: " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - Integer.BYTES);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt(bytes.length - Integer.BYTES) != (int) crc.getValue()) {
+            throw new IOException("Не сходится контрольная сумма архива статистики: " + path);
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Не архив статистики: " + path);
+        }
+        LocalDateTime from = ofEpochSecond(buffer.getLong());
+        LocalDateTime to = ofEpochSecond(buffer.getLong());
+        int rows = buffer.getInt();
+        String[] apps = readDictionary(buffer);
+        String[] uris = readDictionary(buffer);
+        String[] ips = readDictionary(buffer);
+        int[] times = new int[rows];
+        int time = 0;
+        for (int i = 0; i < rows; i++) {
+            time += readVarint(buffer);
+            times[i] = time;
+        }
+        int[] appColumn = readColumn(buffer, rows);
+        int[] uriColumn = readColumn(buffer, rows);
+        int[] ipColumn = readColumn(buffer, rows);
+        return new StatisticsArchiveFile(from, to, apps, uris, ips, times, appColumn, uriColumn, ipColumn);
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] values = new String[readVarint(buffer)];
+        for (int i = 0; i < values.length; i++) {
+            int length = readVarint(buffer);
+            values[i] = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        return values;
+    }
+
+    private static int[] readColumn(ByteBuffer buffer, int rows) {
+        int[] column = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            column[i] = readVarint(buffer);
+        }
+        return column;
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime ofEpochSecond(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    @FunctionalInterface
+    public interface HitVisitor {
+        void visit(int app, int uri, int ip);
+    }
+
+    /**
+     * Собирает файл из хитов секции, поданных в порядке времени; строки словарей получают индексы по мере появления.
+     */
+    public static class Writer {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final Dictionary apps = new Dictionary();
+        private final Dictionary uris = new Dictionary();
+        private final Dictionary ips = new Dictionary();
+        private int[] times = new int[1024];
+        private int[] appColumn = new int[1024];
+        private int[] uriColumn = new int[1024];
+        private int[] ipColumn = new int[1024];
+        private int rows;
+
+        public Writer(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public void add(String app, String uri, String ip, LocalDateTime time) {
+            if (time.isBefore(from) || !time.isBefore(to)) {
+                throw new IllegalArgumentException("Хит " + time + " вне секции [" + from + ", " + to + ")");
+            }
+            int offset = (int) (epochSecond(time) - epochSecond(from));
+            if (rows > 0 && offset < times[rows - 1]) {
+                throw new IllegalArgumentException("Хиты архива должны подаваться в порядке времени");
+            }
+            if (rows == times.length) {
+                int capacity = rows * 2;
+                times = Arrays.copyOf(times, capacity);
+                appColumn = Arrays.copyOf(appColumn, capacity);
+                uriColumn = Arrays.copyOf(uriColumn, capacity);
+                ipColumn = Arrays.copyOf(ipColumn, capacity);
+            }
+            times[rows] = offset;
+            appColumn[rows] = apps.index(app);
+            uriColumn[rows] = uris.index(uri);
+            ipColumn[rows] = ips.index(ip);
+            rows++;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Пишет во временный файл рядом и атомарно переименовывает: читатели не видят недописанный архив.
+         */
+        public void write(Path path) throws IOException {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(temp)) {
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(file, 1 << 16), crc));
+                out.writeInt(MAGIC);
+                out.writeLong(epochSecond(from));
+                out.writeLong(epochSecond(to));
+                out.writeInt(rows);
+                apps.write(out);
+                uris.write(out);
+                ips.write(out);
+                int previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    writeVarint(out, times[i] - previous);
+                    previous = times[i];
+                }
+                for (int[] column : List.of(appColumn, uriColumn, ipColumn)) {
+                    for (int i = 0; i < rows; i++) {
+                        writeVarint(out, column[i]);
+                    }
+                }
+                out.flush();
+                new DataOutputStream(file).writeInt((int) crc.getValue());
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private static void writeVarint(DataOutputStream out, int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        private static final class Dictionary {
+            private final Map<String, Integer> indexes = new HashMap<>();
+            private final List<String> values = new ArrayList<>();
+
+            int index(String value) {
+                return indexes.computeIfAbsent(value, v -> {
+                    values.add(v);
+                    return values.size() - 1;
+                });
+            }
+
+            void write(DataOutputStream out) throws IOException {
+                writeVarint(out, values.size());
+                for (String value : values) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    writeVarint(out, bytes.length);
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+}
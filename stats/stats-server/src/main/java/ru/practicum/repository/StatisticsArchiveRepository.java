@@ -0,0 +1,106 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Чтение хитов для выгрузки секций в колоночный архив и для точного подсчёта уникальных на стыке архива и таблицы,
+ * учёт выгруженных секций в statistics_archive.
+ */
+@Repository
+public class StatisticsArchiveRepository {
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    /* отдельный шаблон с fetch size: внутри транзакции драйвер Postgres читает результат курсором порциями */
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public StatisticsArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * Запрещает запись в секцию до конца транзакции, чтобы опоздавший хит не потерялся между выгрузкой и удалением.
+     */
+    public void lockPartition(String name) {
+        jdbcTemplate.execute("LOCK TABLE " + name + " IN SHARE MODE");
+    }
+
+    /**
+     * Отмечает секцию выгруженной. Вызывается в транзакции, которая удаляет секцию из таблицы.
+     */
+    public void registerArchived(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.update("""
+                INSERT INTO statistics_archive (partition_name, range_from, range_to) VALUES (?, ?, ?)
+                ON CONFLICT (partition_name) DO UPDATE SET range_from = EXCLUDED.range_from, range_to = EXCLUDED.range_to
+                """, name, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Отмечает выгруженной секцию, файл которой лежит в архиве, а в таблице её уже нет: архивы, записанные
+     * до появления statistics_archive.
+     */
+    public void registerArchivedIfDropped(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.update("""
+                INSERT INTO statistics_archive (partition_name, range_from, range_to)
+                SELECT ?, ?, ? WHERE to_regclass(?) IS NULL
+                ON CONFLICT (partition_name) DO NOTHING
+                """, name, Timestamp.valueOf(from), Timestamp.valueOf(to), name);
+    }
+
+    /**
+     * @return конец самой поздней выгруженной секции или null, если архив пуст
+     */
+    @Nullable
+    public LocalDateTime findHorizon() {
+        Timestamp horizon = jdbcTemplate.queryForObject("SELECT max(range_to) FROM statistics_archive",
+                Timestamp.class);
+        return horizon != null ? horizon.toLocalDateTime() : null;
+    }
+
+    public long countPartition(String name) {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + name, Long.class);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Отдаёт хиты секции с именами app и uri в порядке времени.
+     */
+    public void streamPartition(String name, RowCallbackHandler handler) {
+        streamingJdbcTemplate.query("SELECT a.name AS app, u.uri AS uri, s.ip AS ip, s.call_time AS call_time FROM "
+                + name + " s JOIN stats_app a ON a.id = s.app_id JOIN stats_uri u ON u.id = s.uri_id "
+                + "ORDER BY s.call_time", handler);
+    }
+
+    /**
+     * Отдаёт различные (app, uri, ip) за [start, end].
+     */
+    public void streamDistinctIps(LocalDateTime start, LocalDateTime end, Collection<String> uris,
+                                  RowCallbackHandler handler) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(start), Timestamp.valueOf(end)));
+        StringBuilder sql = new StringBuilder("""
+                SELECT a.name AS app, u.uri AS uri, g.ip AS ip
+                FROM (SELECT DISTINCT s.app_id, s.uri_id, s.ip FROM statistics s
+                      WHERE s.call_time BETWEEN ? AND ?""");
+        if (uris != null && !uris.isEmpty()) {
+            sql.append(" AND s.uri_id IN (SELECT d.id FROM stats_uri d WHERE d.uri = ANY (?))");
+            args.add(uris.toArray(String[]::new));
+        }
+        sql.append("""
+                ) g
+                JOIN stats_app a ON a.id = g.app_id
+                JOIN stats_uri u ON u.id = g.uri_id
+                """);
+        streamingJdbcTemplate.query(sql.toString(), handler, args.toArray());
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.repository;
+
+import ru.practicum.service.AppUri;
+import ru.practicum.service.HyperLogLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * HyperLogLog-скетчи уникальных IP по (app, uri) за всю секцию архива, в файле рядом с её .stc: приближённый
+ * подсчёт уникальных по целиком покрытой секции сливает их, не обходя хиты.
+ * <p>
+ * Формат: int magic "STH1", int n, затем n записей (app и uri в modified UTF-8, int длина и байты скетча),
+ * int CRC32 всего предшествующего содержимого.
+ */
+public final class StatisticsArchiveSketches {
+    public static final String EXTENSION = ".hll";
+    private static final int MAGIC = 0x53544831;
+
+    private StatisticsArchiveSketches() {
+    }
+
+    /**
+     * Путь файла скетчей для файла архива секции.
+     */
+    public static Path pathFor(Path archive) {
+        String name = archive.getFileName().toString();
+        if (name.endsWith(StatisticsArchiveFile.EXTENSION)) {
+            name = name.substring(0, name.length() - StatisticsArchiveFile.EXTENSION.length());
+        }
+        return archive.resolveSibling(name + EXTENSION);
+    }
+
+    /**
+     * Строит скетчи по всем хитам уже разобранного файла архива.
+     */
+    public static Map<AppUri, HyperLogLog> build(StatisticsArchiveFile file, int precision) {
+        Map<Long, HyperLogLog> byPair = new HashMap<>();
+        file.forEachHit(file.getFrom(), file.getTo(), false, null, (app, uri, ip) ->
+                byPair.computeIfAbsent(((long) app << Integer.SIZE) | (uri & 0xffffffffL),
+                        k -> new HyperLogLog(precision)).add(file.ip(ip)));
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>(byPair.size() * 2);
+        byPair.forEach((pair, sketch) -> sketches.put(
+                new AppUri(file.app((int) (pair >>> Integer.SIZE)), file.uri((int) (long) pair)), sketch));
+        return sketches;
+    }
+
+    /**
+     * Пишет во временный файл рядом и атомарно переименовывает, как и сам архив.
+     */
+    public static void write(Path path, Map<AppUri, HyperLogLog> sketches) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(file, 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(sketches.size());
+            for (Map.Entry<AppUri, HyperLogLog> entry : sketches.entrySet()) {
+                out.writeUTF(entry.getKey().app());
+                out.writeUTF(entry.getKey().uri());
+                byte[] bytes = entry.getValue().toBytes();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static Map<AppUri, HyperLogLog> read(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Не файл скетчей архива статистики: " + path);
+            }
+            int size = in.readInt();
+            Map<AppUri, HyperLogLog> sketches = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                AppUri key = new AppUri(in.readUTF(), in.readUTF());
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                sketches.put(key, HyperLogLog.fromBytes(bytes));
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(file).readInt() != expected) {
+                throw new IOException("Не сходится контрольная сумма скетчей архива статистики: " + path);
+            }
+            return sketches;
+        }
+    }
+}
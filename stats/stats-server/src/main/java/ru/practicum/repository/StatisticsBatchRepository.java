@@ -0,0 +1,56 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Пакетная запись хитов многострочными INSERT-ами через JDBC.
+ * IDENTITY-ключ не даёт Hibernate батчить вставки, поэтому пачка уходит одним запросом на чанк.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatisticsBatchRepository {
+    /* 4 параметра на строку, чанк держим далеко от лимита протокола Postgres в 65535 параметров */
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+    private static final String INSERT_PREFIX = "INSERT INTO statistics (app_id, uri_id, ip, call_time) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void saveAll(List<HitRow> hits) {
+        for (int from = 0; from < hits.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<HitRow> chunk = hits.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, hits.size()));
+            jdbcTemplate.update(insertSql(chunk.size()), ps -> bind(ps, chunk));
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sb = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDER.length() + 2));
+        sb.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(ROW_PLACEHOLDER);
+        }
+        return sb.toString();
+    }
+
+    private static void bind(PreparedStatement ps, List<HitRow> chunk) throws SQLException {
+        int index = 1;
+        for (HitRow hit : chunk) {
+            ps.setInt(index++, hit.appId());
+            ps.setInt(index++, hit.uriId());
+            ps.setString(index++, hit.ip());
+            ps.setTimestamp(index++, Timestamp.valueOf(hit.timestamp()));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Справочники stats_app и stats_uri: строка app или uri хранится один раз, хиты и агрегаты ссылаются на неё
+ * целочисленным ключом.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatisticsDimensionRepository {
+    /* произвольный ключ advisory-блокировки переноса старой схемы между экземплярами stats-server */
+    private static final long MIGRATION_LOCK_KEY = 0x5354444dL;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Возвращает ключи для значений, заводя недостающие. Выполняется в собственной транзакции:
+     * откат записи хитов не должен откатывать ключи, которые уже попали в кэш.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Map<String, Integer> internApps(Collection<String> names) {
+        return intern(Dimension.APP, names);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Map<String, Integer> internUris(Collection<String> uris) {
+        return intern(Dimension.URI, uris);
+    }
+
+    public void lockMigration() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + MIGRATION_LOCK_KEY + ")");
+    }
+
+    public boolean hasColumn(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM information_schema.columns
+                               WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?)
+                """, Boolean.class, table, column));
+    }
+
+    /**
+     * Переводит statistics старой схемы со строковых app и uri на ключи справочников.
+     *
+     * @return число перенесённых хитов
+     */
+    public int migrateStatistics() {
+        jdbcTemplate.update("INSERT INTO stats_app (name) SELECT DISTINCT app FROM statistics ORDER BY 1 "
+                + "ON CONFLICT (name) DO NOTHING");
+        jdbcTemplate.update("INSERT INTO stats_uri (uri) SELECT DISTINCT uri FROM statistics ORDER BY 1 "
+                + "ON CONFLICT (uri) DO NOTHING");
+        int rows = jdbcTemplate.update("""
+                UPDATE statistics s SET app_id = a.id, uri_id = u.id
+                FROM stats_app a, stats_uri u
+                WHERE a.name = s.app AND u.uri = s.uri
+                """);
+        jdbcTemplate.execute("ALTER TABLE statistics ALTER COLUMN app_id SET NOT NULL, "
+                + "ALTER COLUMN uri_id SET NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE statistics ADD FOREIGN KEY (app_id) REFERENCES stats_app (id)");
+        jdbcTemplate.execute("ALTER TABLE statistics ADD FOREIGN KEY (uri_id) REFERENCES stats_uri (id)");
+        jdbcTemplate.execute("ALTER TABLE statistics DROP COLUMN app, DROP COLUMN uri");
+        return rows;
+    }
+
+    private Map<String, Integer> intern(Dimension dimension, Collection<String> values) {
+        String[] sorted = values.stream().distinct().sorted().toArray(String[]::new);
+        Map<String, Integer> ids = find(dimension, sorted);
+        if (ids.size() == sorted.length) {
+            return ids;
+        }
+        String[] missing = Arrays.stream(sorted).filter(v -> !ids.containsKey(v)).toArray(String[]::new);
+        /* сортировка задаёт единый порядок вставки, параллельные пачки не блокируют друг друга взаимно */
+        jdbcTemplate.update("INSERT INTO " + dimension.table + " (" + dimension.column + ") "
+                        + "SELECT v FROM unnest(?) AS v ORDER BY v ON CONFLICT (" + dimension.column + ") DO NOTHING",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", missing)));
+        ids.putAll(find(dimension, missing));
+        return ids;
+    }
+
+    private Map<String, Integer> find(Dimension dimension, String[] values) {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, " + dimension.column + " FROM " + dimension.table
+                        + " WHERE " + dimension.column + " = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", values)),
+                rs -> {
+                    ids.put(rs.getString(2), rs.getInt(1));
+                });
+        return ids;
+    }
+
+    private enum Dimension {
+        APP("stats_app", "name"),
+        URI("stats_uri", "uri");
+
+        private final String table;
+        private final String column;
+
+        Dimension(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DDL-операции над секциями таблицы statistics, секционированной по диапазонам call_time.
+ * Вызывается только внутри транзакции обслуживания секций.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatisticsPartitionRepository {
+    public static final String DEFAULT_PARTITION = "statistics_default";
+    public static final String PARTITION_PREFIX = "statistics_p";
+    private static final String LEGACY_TABLE = "statistics_legacy";
+    /* произвольный ключ advisory-блокировки обслуживания секций между экземплярами stats-server */
+    private static final long MAINTENANCE_LOCK_KEY = 0x57415453L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void lockMaintenance() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + MAINTENANCE_LOCK_KEY + ")");
+    }
+
+    public boolean tryMaintenanceLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                MAINTENANCE_LOCK_KEY));
+    }
+
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'statistics'::regclass)",
+                Boolean.class));
+    }
+
+    /**
+     * Убирает несекционированную таблицу старой схемы с дороги, чтобы schema.sql создал секционированную.
+     */
+    public void renameLegacyTable() {
+        jdbcTemplate.execute("ALTER TABLE statistics RENAME TO " + LEGACY_TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " RENAME CONSTRAINT statistics_pkey TO "
+                + LEGACY_TABLE + "_pkey");
+        jdbcTemplate.execute("ALTER SEQUENCE IF EXISTS statistics_id_seq RENAME TO " + LEGACY_TABLE + "_id_seq");
+    }
+
+    public List<LocalDateTime> findLegacyIntervals(String sqlUnit) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT date_trunc(?, call_time) FROM " + LEGACY_TABLE,
+                Timestamp.class, sqlUnit).stream().map(Timestamp::toLocalDateTime).toList();
+    }
+
+    public int copyLegacyRows() {
+        int rows = jdbcTemplate.update("INSERT INTO statistics (id, app_id, uri_id, ip, call_time) "
+                + "SELECT id, app_id, uri_id, ip, call_time FROM " + LEGACY_TABLE);
+        jdbcTemplate.execute("SELECT setval(pg_get_serial_sequence('statistics', 'id'), "
+                + "(SELECT COALESCE(MAX(id), 0) + 1 FROM statistics), false)");
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+        return rows;
+    }
+
+    public void createDefaultPartition() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF statistics DEFAULT");
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'statistics'::regclass
+                """, String.class);
+    }
+
+    public List<LocalDateTime> findDefaultPartitionIntervals(String sqlUnit) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT date_trunc(?, call_time) FROM " + DEFAULT_PARTITION,
+                Timestamp.class, sqlUnit).stream().map(Timestamp::toLocalDateTime).toList();
+    }
+
+    /**
+     * Создаёт секцию [from, to): строки этого диапазона, уже попавшие в секцию по умолчанию, переносятся в неё
+     * до присоединения, иначе Postgres откажет в ATTACH.
+     */
+    public void createPartition(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE statistics INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                        + " WHERE call_time >= ? AND call_time < ? RETURNING id, app_id, uri_id, ip, call_time) "
+                        + "INSERT INTO " + name + " (id, app_id, uri_id, ip, call_time) SELECT * FROM moved",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.execute("ALTER TABLE statistics ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + Timestamp.valueOf(from) + "') TO ('" + Timestamp.valueOf(to) + "')");
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+
+    /**
+     * Отсоединяет секцию: данные остаются в отдельной таблице statistics_archive_* вне горячего пути запросов.
+     */
+    public String detachPartition(String name) {
+        String archiveName = name.replace(PARTITION_PREFIX, "statistics_archive_");
+        jdbcTemplate.execute("ALTER TABLE statistics DETACH PARTITION " + name);
+        jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archiveName);
+        return archiveName;
+    }
+
+    public int deleteDefaultPartitionRowsBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE call_time < ?",
+                Timestamp.valueOf(cutoff));
+    }
+}
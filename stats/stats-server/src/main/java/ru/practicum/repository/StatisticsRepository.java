@@ -1,50 +1,77 @@
 package ru.practicum.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.model.Statistics;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-
+/**
+ * Точный подсчёт по сырым хитам. Методы отдают поток, читаемый курсором порциями по fetch size;
+ * поток нужно закрыть и читать внутри транзакции. limit null — без ограничения.
+ */
 public interface StatisticsRepository extends JpaRepository<Statistics, Long> {
 
     @Query(value = """
-            SELECT s.app AS app, s.uri AS uri, COUNT(*) AS hits
-            FROM statistics s
-            WHERE s.call_time BETWEEN :start AND :end
-            GROUP BY s.app, s.uri
+            SELECT a.name AS app, u.uri AS uri, t.hits AS hits
+            FROM (SELECT s.app_id, s.uri_id, COUNT(*) AS hits
+                  FROM statistics s
+                  WHERE s.call_time BETWEEN :start AND :end
+                  GROUP BY s.app_id, s.uri_id) t
+            JOIN stats_app a ON a.id = t.app_id
+            JOIN stats_uri u ON u.id = t.uri_id
             ORDER BY hits DESC
+            LIMIT :limit
             """, nativeQuery = true)
-    List<ViewStats> findStats(LocalDateTime start, LocalDateTime end);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ViewStats> findStats(LocalDateTime start, LocalDateTime end, Integer limit);
 
     @Query(value = """
-            SELECT s.app AS app, s.uri AS uri, COUNT(DISTINCT s.ip) AS hits
-            FROM statistics s
-            WHERE s.call_time BETWEEN :start AND :end
-            GROUP BY s.app, s.uri
+            SELECT a.name AS app, u.uri AS uri, t.hits AS hits
+            FROM (SELECT s.app_id, s.uri_id, COUNT(DISTINCT s.ip) AS hits
+                  FROM statistics s
+                  WHERE s.call_time BETWEEN :start AND :end
+                  GROUP BY s.app_id, s.uri_id) t
+            JOIN stats_app a ON a.id = t.app_id
+            JOIN stats_uri u ON u.id = t.uri_id
             ORDER BY hits DESC
+            LIMIT :limit
             """, nativeQuery = true)
-    List<ViewStats> findUniqueStats(LocalDateTime start, LocalDateTime end);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ViewStats> findUniqueStats(LocalDateTime start, LocalDateTime end, Integer limit);
 
     @Query(value = """
-            SELECT s.app AS app, s.uri AS uri, COUNT(*) AS hits
-            FROM statistics s
-            WHERE s.call_time BETWEEN :start AND :end
-              AND s.uri IN (:uris)
-            GROUP BY s.app, s.uri
+            SELECT a.name AS app, u.uri AS uri, t.hits AS hits
+            FROM (SELECT s.app_id, s.uri_id, COUNT(*) AS hits
+                  FROM statistics s
+                  WHERE s.call_time BETWEEN :start AND :end
+                    AND s.uri_id IN (SELECT d.id FROM stats_uri d WHERE d.uri IN (:uris))
+                  GROUP BY s.app_id, s.uri_id) t
+            JOIN stats_app a ON a.id = t.app_id
+            JOIN stats_uri u ON u.id = t.uri_id
             ORDER BY hits DESC
+            LIMIT :limit
             """, nativeQuery = true)
-    List<ViewStats> findStatsByUris(LocalDateTime start, LocalDateTime end, List<String> uris);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ViewStats> findStatsByUris(LocalDateTime start, LocalDateTime end, List<String> uris, Integer limit);
 
     @Query(value = """
-            SELECT s.app AS app, s.uri AS uri, COUNT(DISTINCT s.ip) AS hits
-            FROM statistics s
-            WHERE s.call_time BETWEEN :start AND :end
-              AND s.uri IN (:uris)
-            GROUP BY s.app, s.uri
+            SELECT a.name AS app, u.uri AS uri, t.hits AS hits
+            FROM (SELECT s.app_id, s.uri_id, COUNT(DISTINCT s.ip) AS hits
+                  FROM statistics s
+                  WHERE s.call_time BETWEEN :start AND :end
+                    AND s.uri_id IN (SELECT d.id FROM stats_uri d WHERE d.uri IN (:uris))
+                  GROUP BY s.app_id, s.uri_id) t
+            JOIN stats_app a ON a.id = t.app_id
+            JOIN stats_uri u ON u.id = t.uri_id
             ORDER BY hits DESC
+            LIMIT :limit
             """, nativeQuery = true)
-    List<ViewStats> findUniqueStatsByUris(LocalDateTime start, LocalDateTime end, List<String> uris);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ViewStats> findUniqueStatsByUris(LocalDateTime start, LocalDateTime end, List<String> uris, Integer limit);
 }
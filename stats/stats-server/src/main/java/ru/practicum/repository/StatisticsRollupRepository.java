@@ -0,0 +1,152 @@
+package ru.practicum.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.StatisticsGetResponseDto;
+import ru.practicum.service.TimeGranularity;
+import ru.practicum.service.TimeSlice;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Предагрегированные счётчики хитов по (app, uri) в минутных, часовых и дневных бакетах.
+ */
+@Slf4j
+@Repository
+public class StatisticsRollupRepository {
+    private static final String UPSERT_SQL = """
+            INSERT INTO statistics_rollup (granularity, bucket_start, app_id, uri_id, hits)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (granularity, bucket_start, app_id, uri_id)
+            DO UPDATE SET hits = statistics_rollup.hits + EXCLUDED.hits
+            """;
+    private static final String BACKFILL_SQL = """
+            INSERT INTO statistics_rollup (granularity, bucket_start, app_id, uri_id, hits)
+            SELECT ?, date_trunc(?, s.call_time), s.app_id, s.uri_id, COUNT(*)
+            FROM statistics s
+            GROUP BY 2, s.app_id, s.uri_id
+            """;
+
+    private static final String MINUTE_BUCKETS_SQL = """
+            SELECT a.name AS app, u.uri AS uri, r.bucket_start AS bucket_start, r.hits AS hits
+            FROM statistics_rollup r
+            JOIN stats_app a ON a.id = r.app_id
+            JOIN stats_uri u ON u.id = r.uri_id
+            WHERE r.granularity = ? AND r.bucket_start >= ? AND r.bucket_start < ?
+            """;
+    private static final int STREAM_FETCH_SIZE = 1000;
+    /* список URI привязывается одним параметром-массивом: срезов может быть несколько, а число параметров
+       запроса Postgres ограничено 65535 */
+    static final String URI_FILTER = " AND uri_id IN (SELECT d.id FROM stats_uri d WHERE d.uri = ANY (:uris))";
+
+    private final JdbcTemplate jdbcTemplate;
+    /* отдельный шаблон с fetch size: внутри транзакции драйвер Postgres читает результат курсором порциями */
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    public StatisticsRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(STREAM_FETCH_SIZE);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    @Transactional
+    public void increment(List<HitRow> hits) {
+        Map<BucketKey, Long> counters = new TreeMap<>(BucketKey.ORDER);
+        for (HitRow hit : hits) {
+            for (TimeGranularity granularity : TimeGranularity.values()) {
+                BucketKey key = new BucketKey(granularity, granularity.floor(hit.timestamp()),
+                        hit.appId(), hit.uriId());
+                counters.merge(key, 1L, Long::sum);
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(counters.size());
+        counters.forEach((key, count) -> rows.add(new Object[]{
+                key.granularity().name(), Timestamp.valueOf(key.bucketStart()), key.appId(), key.uriId(), count}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    /**
+     * Однократно заполняет бакеты по уже накопленным хитам, если таблица пуста.
+     */
+    @Transactional
+    public void backfillIfEmpty() {
+        jdbcTemplate.execute("LOCK TABLE statistics_rollup IN EXCLUSIVE MODE");
+        Boolean hasRows = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM statistics_rollup)", Boolean.class);
+        if (Boolean.TRUE.equals(hasRows)) {
+            return;
+        }
+        jdbcTemplate.execute("LOCK TABLE statistics IN SHARE MODE");
+        for (TimeGranularity granularity : TimeGranularity.values()) {
+            int rows = jdbcTemplate.update(BACKFILL_SQL, granularity.name(), granularity.getSqlUnit());
+            log.info("Бакеты {} заполнены по истории хитов: {} строк", granularity, rows);
+        }
+    }
+
+    /**
+     * Удаляет бакеты, начавшиеся раньше cutoff: хиты за этот период ушли из таблицы statistics по сроку хранения.
+     *
+     * @return число удалённых бакетов
+     */
+    public int deleteBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM statistics_rollup WHERE bucket_start < ?", Timestamp.valueOf(cutoff));
+    }
+
+    /**
+     * Отдаёт минутные бакеты интервала [from, to) с именами app и uri.
+     */
+    public void streamMinuteBuckets(LocalDateTime from, LocalDateTime to, RowCallbackHandler handler) {
+        jdbcTemplate.query(MINUTE_BUCKETS_SQL, handler, TimeGranularity.MINUTE.name(),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Считает хиты за интервал одним запросом: бакеты берутся из statistics_rollup, сырые края — из statistics.
+     * Группировка идёт по ключам справочников, строки app и uri подставляются только в итоговые строки.
+     * Строки отдаются в sink по мере чтения курсором, по убыванию хитов; limit null — без ограничения.
+     */
+    public void streamStats(List<TimeSlice> slices, List<String> uris, Integer limit,
+                            Consumer<StatisticsGetResponseDto> sink) {
+        boolean filterUris = uris != null && !uris.isEmpty();
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+        if (filterUris) {
+            parameters.addValue("uris", uris.toArray(String[]::new));
+        }
+        List<String> parts = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            TimeSlice slice = slices.get(i);
+            parameters.addValue("from" + i, Timestamp.valueOf(slice.from()));
+            parameters.addValue("to" + i, Timestamp.valueOf(slice.to()));
+            String uriFilter = filterUris ? URI_FILTER : "";
+            if (slice.isRaw()) {
+                String upperBound = slice.toInclusive() ? " <= :to" : " < :to";
+                parts.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM statistics"
+                        + " WHERE call_time >= :from" + i + " AND call_time" + upperBound + i + uriFilter
+                        + " GROUP BY app_id, uri_id");
+            } else {
+                parameters.addValue("granularity" + i, slice.granularity().name());
+                parts.add("SELECT app_id, uri_id, hits FROM statistics_rollup"
+                        + " WHERE granularity = :granularity" + i
+                        + " AND bucket_start >= :from" + i + " AND bucket_start < :to" + i + uriFilter);
+            }
+        }
+        String sql = "SELECT a.name AS app, u.uri AS uri, t.hits AS hits FROM ("
+                + "SELECT p.app_id, p.uri_id, SUM(p.hits) AS hits FROM (" + String.join(" UNION ALL ", parts) + ") p"
+                + " GROUP BY p.app_id, p.uri_id) t"
+                + " JOIN stats_app a ON a.id = t.app_id JOIN stats_uri u ON u.id = t.uri_id ORDER BY t.hits DESC LIMIT :limit";
+        streamingJdbcTemplate.query(sql, parameters, rs -> {
+            sink.accept(new StatisticsGetResponseDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+        });
+    }
+}
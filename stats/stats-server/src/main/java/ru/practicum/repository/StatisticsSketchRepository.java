@@ -0,0 +1,158 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.service.HyperLogLog;
+import ru.practicum.service.TimeGranularity;
+import ru.practicum.service.TimeSlice;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HyperLogLog-скетчи уникальных IP по (app, uri) в часовых и дневных бакетах.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatisticsSketchRepository {
+    private static final int STREAM_FETCH_SIZE = 10_000;
+    private static final String INSERT_SQL = """
+            INSERT INTO statistics_unique_sketch (granularity, bucket_start, app_id, uri_id, sketch)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (granularity, bucket_start, app_id, uri_id) DO NOTHING
+            """;
+    private static final String LOCK_SQL = """
+            SELECT sketch FROM statistics_unique_sketch
+            WHERE granularity = ? AND bucket_start = ? AND app_id = ? AND uri_id = ?
+            FOR UPDATE
+            """;
+    private static final String UPDATE_SQL = """
+            UPDATE statistics_unique_sketch SET sketch = ?
+            WHERE granularity = ? AND bucket_start = ? AND app_id = ? AND uri_id = ?
+            """;
+    private static final String DISTINCT_IPS_SQL = """
+            SELECT DISTINCT s.app_id, s.uri_id, date_trunc(?, s.call_time) AS bucket_start, s.ip
+            FROM statistics s
+            WHERE s.call_time >= ? AND s.call_time < ?
+            ORDER BY app_id, uri_id, bucket_start
+            """;
+    private static final String FIRST_HIT_SQL = """
+            SELECT min(call_time) FROM statistics WHERE call_time >= ?
+            """;
+    private static final String LATEST_BUCKET_SQL = """
+            SELECT max(bucket_start) FROM statistics_unique_sketch WHERE granularity = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Вливает скетчи пачки в сохранённые: новые ключи вставляются, существующие сливаются под блокировкой строки.
+     *
+     * @param sketches скетчи в порядке {@link BucketKey#ORDER}
+     */
+    @Transactional
+    public void merge(Map<BucketKey, HyperLogLog> sketches) {
+        List<BucketKey> keys = new ArrayList<>(sketches.keySet());
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (BucketKey key : keys) {
+            rows.add(new Object[]{key.granularity().name(), Timestamp.valueOf(key.bucketStart()), key.appId(),
+                    key.uriId(), sketches.get(key).toBytes()});
+        }
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        for (int i = 0; i < keys.size(); i++) {
+            if (inserted[i] > 0) {
+                continue;
+            }
+            Object[] keyArgs = new Object[]{rows.get(i)[0], rows.get(i)[1], rows.get(i)[2], rows.get(i)[3]};
+            byte[] stored = jdbcTemplate.queryForObject(LOCK_SQL, byte[].class, keyArgs);
+            HyperLogLog merged = HyperLogLog.fromBytes(stored).merge(sketches.get(keys.get(i)));
+            jdbcTemplate.update(UPDATE_SQL, merged.toBytes(), keyArgs[0], keyArgs[1], keyArgs[2], keyArgs[3]);
+        }
+    }
+
+    /**
+     * @return начало последнего бакета с сохранённым скетчем или null, если скетчей этой гранулярности нет
+     */
+    @Nullable
+    public LocalDateTime findLatestBucket(TimeGranularity granularity) {
+        Timestamp latest = jdbcTemplate.queryForObject(LATEST_BUCKET_SQL, Timestamp.class, granularity.name());
+        return latest != null ? latest.toLocalDateTime() : null;
+    }
+
+    /**
+     * Удаляет скетчи бакетов, начавшихся раньше cutoff; скетчи выгруженных секций остаются в архиве.
+     *
+     * @return число удалённых скетчей
+     */
+    public int deleteBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM statistics_unique_sketch WHERE bucket_start < ?",
+                Timestamp.valueOf(cutoff));
+    }
+
+    /**
+     * @return время первого хита не раньше from или null, если таких хитов нет
+     */
+    @Nullable
+    public LocalDateTime findFirstHitTime(LocalDateTime from) {
+        Timestamp first = jdbcTemplate.queryForObject(FIRST_HIT_SQL, Timestamp.class, Timestamp.valueOf(from));
+        return first != null ? first.toLocalDateTime() : null;
+    }
+
+    /**
+     * Потоково отдаёт различные IP хитов за [from, to), упорядоченные по (app_id, uri_id, бакет).
+     * Курсор Postgres работает только внутри транзакции.
+     */
+    public void streamDistinctIps(TimeGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                  RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            var ps = connection.prepareStatement(DISTINCT_IPS_SQL);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setString(1, granularity.getSqlUnit());
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Отдаёт по интервалу сохранённые скетчи бакетов (колонка sketch) и различные IP сырых краёв (колонка ip).
+     */
+    public void findSketchParts(List<TimeSlice> slices, List<String> uris, RowCallbackHandler handler) {
+        boolean filterUris = uris != null && !uris.isEmpty();
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (filterUris) {
+            parameters.addValue("uris", uris.toArray(String[]::new));
+        }
+        List<String> parts = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            TimeSlice slice = slices.get(i);
+            parameters.addValue("from" + i, Timestamp.valueOf(slice.from()));
+            parameters.addValue("to" + i, Timestamp.valueOf(slice.to()));
+            String uriFilter = filterUris ? StatisticsRollupRepository.URI_FILTER : "";
+            if (slice.isRaw()) {
+                String upperBound = slice.toInclusive() ? " <= :to" : " < :to";
+                parts.add("SELECT DISTINCT app_id, uri_id, CAST(NULL AS bytea) AS sketch, ip FROM statistics"
+                        + " WHERE call_time >= :from" + i + " AND call_time" + upperBound + i + uriFilter);
+            } else {
+                parameters.addValue("granularity" + i, slice.granularity().name());
+                parts.add("SELECT app_id, uri_id, sketch, CAST(NULL AS varchar) AS ip FROM statistics_unique_sketch"
+                        + " WHERE granularity = :granularity" + i
+                        + " AND bucket_start >= :from" + i + " AND bucket_start < :to" + i + uriFilter);
+            }
+        }
+        String sql = "SELECT a.name AS app, u.uri AS uri, p.sketch AS sketch, p.ip AS ip FROM ("
+                + String.join(" UNION ALL ", parts) + ") p"
+                + " JOIN stats_app a ON a.id = p.app_id JOIN stats_uri u ON u.id = p.uri_id";
+        namedJdbcTemplate.query(sql, parameters, handler);
+    }
+}
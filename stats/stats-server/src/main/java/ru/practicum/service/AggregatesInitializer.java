@@ -0,0 +1,26 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import ru.practicum.repository.StatisticsRollupRepository;
+
+/**
+ * Строит агрегаты по уже накопленной истории хитов до того, как сервис начнёт отвечать на запросы.
+ */
+@Component
+@DependsOn("statisticsPartitionManager")
+@RequiredArgsConstructor
+public class AggregatesInitializer {
+    private final StatisticsRollupRepository statisticsRollupRepository;
+    private final UniqueSketchService uniqueSketchService;
+    private final TrendingService trendingService;
+
+    @PostConstruct
+    public void init() {
+        statisticsRollupRepository.backfillIfEmpty();
+        uniqueSketchService.backfill();
+        trendingService.rebuild();
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.service;
+
+/**
+ * Ключ агрегации статистики в памяти.
+ */
+public record AppUri(String app, String uri) {
+}
@@ -0,0 +1,167 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.practicum.batch.BatchDrainLoop;
+import ru.practicum.exceptions.IngestOverloadException;
+import ru.practicum.model.Statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Асинхронный приём хитов: POST /hit кладёт запись в ограниченную очередь,
+ * фоновый поток сбрасывает её в statistics пачками по размеру или по таймеру.
+ * При заполненной очереди вызывающий ждёт не дольше offer-timeout, затем получает отказ (503).
+ * Неудачная запись пачки повторяется до flush-retries раз с удваивающейся паузой от flush-retry-backoff-ms;
+ * пока фоновый поток ждёт, очередь не разбирается и приём упирается в её ёмкость.
+ * При остановке контекста очередь дописывается в базу целиком.
+ */
+@Slf4j
+@Component
+public class HitIngestQueue implements SmartLifecycle {
+    /* останавливаемся после веб-сервера, чтобы не потерять хиты из последних запросов */
+    private static final int PHASE = 0;
+
+    private final HitRecorder hitRecorder;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final int flushRetries;
+    private final long flushRetryBackoffMillis;
+    private final BlockingQueue<Statistics> queue;
+    /* offer проверяет running и кладёт хит под чтением, stop снимает running под записью:
+       после stop в очередь не попадёт хит, который уже некому сбросить */
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public HitIngestQueue(HitRecorder hitRecorder,
+                          @Value("${stats.ingest.async-enabled:false}") boolean enabled,
+                          @Value("${stats.ingest.queue-capacity:10000}") int queueCapacity,
+                          @Value("${stats.ingest.batch-size:500}") int batchSize,
+                          @Value("${stats.ingest.flush-interval-ms:200}") long flushIntervalMillis,
+                          @Value("${stats.ingest.offer-timeout-ms:50}") long offerTimeoutMillis,
+                          @Value("${stats.ingest.flush-retries:3}") int flushRetries,
+                          @Value("${stats.ingest.flush-retry-backoff-ms:100}") long flushRetryBackoffMillis) {
+        this.hitRecorder = hitRecorder;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.flushRetries = flushRetries;
+        this.flushRetryBackoffMillis = flushRetryBackoffMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void offer(Statistics hit) {
+        boolean accepted;
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                hitRecorder.record(List.of(hit));
+                return;
+            }
+            accepted = queue.offer(hit, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+        if (!accepted) {
+            throw new IngestOverloadException("Очередь приёма статистики переполнена, повторите запрос позже");
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "stats-hit-ingest");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Асинхронный приём хитов включён: batchSize={}, flushInterval={}ms", batchSize,
+                TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos));
+    }
+
+    @Override
+    public void stop() {
+        lifecycleLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        /* хиты, положенные до снятия running, но после последнего опроса очереди фоновым потоком */
+        List<Statistics> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        flush(rest);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void drainLoop() {
+        BatchDrainLoop.run(queue, batchSize, flushIntervalNanos, () -> running, this::flush);
+        log.info("Очередь приёма хитов сброшена в базу");
+    }
+
+    private void flush(List<Statistics> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long backoff = flushRetryBackoffMillis;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                hitRecorder.record(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= flushRetries) {
+                    log.error("Не удалось записать пачку из {} хитов, попыток: {}", batch.size(), attempt + 1, e);
+                    return;
+                }
+                log.warn("Не удалось записать пачку из {} хитов, повтор через {} мс: {}", batch.size(), backoff,
+                        e.getMessage());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Запись пачки из {} хитов прервана, хиты потеряны", batch.size());
+                return;
+            }
+            backoff *= 2;
+        }
+    }
+}
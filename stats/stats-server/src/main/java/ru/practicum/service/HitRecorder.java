@@ -0,0 +1,36 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.Statistics;
+import ru.practicum.repository.HitRow;
+import ru.practicum.repository.StatisticsBatchRepository;
+import ru.practicum.repository.StatisticsRollupRepository;
+
+import java.util.List;
+
+/**
+ * Единая точка записи хитов: сырые строки и производные агрегаты обновляются в одной транзакции.
+ */
+@Service
+@RequiredArgsConstructor
+public class HitRecorder {
+    private final StatisticsDimensionService dimensionService;
+    private final StatisticsBatchRepository statisticsBatchRepository;
+    private final StatisticsRollupRepository statisticsRollupRepository;
+    private final UniqueSketchService uniqueSketchService;
+    private final TrendingService trendingService;
+
+    @Transactional
+    public void record(List<Statistics> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        List<HitRow> rows = dimensionService.resolve(hits);
+        statisticsBatchRepository.saveAll(rows);
+        statisticsRollupRepository.increment(rows);
+        uniqueSketchService.record(rows);
+        trendingService.record(hits);
+    }
+}
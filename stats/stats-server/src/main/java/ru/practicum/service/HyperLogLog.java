@@ -0,0 +1,196 @@
+package ru.practicum.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Сливаемый HyperLogLog-скетч для приближённого подсчёта уникальных значений.
+ * Точность задаётся числом бит индекса регистра p (4..16): 2^p байт памяти, стандартная ошибка ~1.04/sqrt(2^p).
+ * Сериализованный вид — байт точности и массив регистров, а пока ненулевых регистров мало — разреженный:
+ * байт точности с флагом SPARSE_FLAG и тройки (индекс в 2 байтах, ранг) по возрастанию индекса. Скетч бакета
+ * страницы с парой посетителей занимает единицы байт вместо 2^p.
+ */
+public class HyperLogLog {
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final int SPARSE_FLAG = 0x80;
+    private static final int SPARSE_ENTRY_BYTES = 3;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Точность HyperLogLog должна быть в диапазоне 4..16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Повреждённый HyperLogLog-скетч");
+        }
+        boolean sparse = (bytes[0] & SPARSE_FLAG) != 0;
+        int precision = bytes[0] & (SPARSE_FLAG - 1);
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Повреждённый HyperLogLog-скетч");
+        }
+        if (!sparse) {
+            if (bytes.length != (1 << precision) + 1) {
+                throw new IllegalArgumentException("Повреждённый HyperLogLog-скетч");
+            }
+            return new HyperLogLog(precision, Arrays.copyOfRange(bytes, 1, bytes.length));
+        }
+        if ((bytes.length - 1) % SPARSE_ENTRY_BYTES != 0) {
+            throw new IllegalArgumentException("Повреждённый HyperLogLog-скетч");
+        }
+        byte[] registers = new byte[1 << precision];
+        int previous = -1;
+        for (int offset = 1; offset < bytes.length; offset += SPARSE_ENTRY_BYTES) {
+            int index = (bytes[offset] & 0xff) << 8 | bytes[offset + 1] & 0xff;
+            int rank = bytes[offset + 2];
+            if (index <= previous || index >= registers.length || rank <= 0 || rank > Long.SIZE - precision + 1) {
+                throw new IllegalArgumentException("Повреждённый HyperLogLog-скетч");
+            }
+            registers[index] = (byte) rank;
+            previous = index;
+        }
+        return new HyperLogLog(precision, registers);
+    }
+
+    /**
+     * Разреженный вид, пока он короче плотного, иначе плотный.
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * SPARSE_ENTRY_BYTES >= registers.length) {
+            byte[] bytes = new byte[registers.length + 1];
+            bytes[0] = (byte) precision;
+            System.arraycopy(registers, 0, bytes, 1, registers.length);
+            return bytes;
+        }
+        byte[] bytes = new byte[nonZero * SPARSE_ENTRY_BYTES + 1];
+        bytes[0] = (byte) (precision | SPARSE_FLAG);
+        int offset = 1;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != 0) {
+                bytes[offset] = (byte) (i >>> 8);
+                bytes[offset + 1] = (byte) i;
+                bytes[offset + 2] = registers[i];
+                offset += SPARSE_ENTRY_BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        long rest = hash << precision;
+        int rank = rest == 0 ? Long.SIZE - precision + 1 : Long.numberOfLeadingZeros(rest) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Объединяет скетч с другим; при разной точности результат понижается до меньшей.
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        HyperLogLog target = precision <= other.precision ? this : withPrecision(other.precision);
+        HyperLogLog source = other.precision == target.precision ? other : other.withPrecision(target.precision);
+        for (int i = 0; i < target.registers.length; i++) {
+            if (source.registers[i] > target.registers[i]) {
+                target.registers[i] = source.registers[i];
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Понижает точность: отброшенные младшие биты индекса становятся старшими битами ранга.
+     */
+    public HyperLogLog withPrecision(int newPrecision) {
+        if (newPrecision == precision) {
+            return this;
+        }
+        if (newPrecision > precision) {
+            throw new IllegalArgumentException("Точность скетча можно только понизить");
+        }
+        int shift = precision - newPrecision;
+        byte[] folded = new byte[1 << newPrecision];
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) {
+                continue;
+            }
+            int droppedBits = i & ((1 << shift) - 1);
+            int rank = droppedBits == 0
+                    ? shift + registers[i]
+                    : Integer.numberOfLeadingZeros(droppedBits) - (Integer.SIZE - shift) + 1;
+            int index = i >>> shift;
+            if (rank > folded[index]) {
+                folded[index] = (byte) rank;
+            }
+        }
+        return new HyperLogLog(newPrecision, folded);
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    /* FNV-1a с финализатором splitmix64 — равномерные 64 бита для коротких строк вроде IP */
+    private static long hash(String value) {
+        long hash = FNV_OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 30;
+        hash *= 0xbf58476d1ce4e5b9L;
+        hash ^= hash >>> 27;
+        hash *= 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+public enum PartitionInterval {
+    DAY("yyyyMMdd", "day"),
+    MONTH("yyyyMM", "month");
+
+    private final DateTimeFormatter suffixFormat;
+    private final String sqlUnit;
+
+    PartitionInterval(String suffixPattern, String sqlUnit) {
+        this.suffixFormat = DateTimeFormatter.ofPattern(suffixPattern);
+        this.sqlUnit = sqlUnit;
+    }
+
+    /* единица для date_trunc в Postgres */
+    public String getSqlUnit() {
+        return sqlUnit;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+        return this == DAY ? day : day.with(TemporalAdjusters.firstDayOfMonth());
+    }
+
+    public LocalDateTime next(LocalDateTime start) {
+        return this == DAY ? start.plusDays(1) : start.plusMonths(1);
+    }
+
+    public LocalDateTime minus(LocalDateTime start, int intervals) {
+        return this == DAY ? start.minusDays(intervals) : start.minusMonths(intervals);
+    }
+
+    public String suffix(LocalDateTime start) {
+        return start.format(suffixFormat);
+    }
+
+    /**
+     * Восстанавливает начало секции по суффиксу имени; интервал определяется длиной суффикса.
+     */
+    public static LocalDateTime parseSuffix(String suffix) {
+        if (suffix.length() == 8) {
+            return LocalDate.parse(suffix, DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay();
+        }
+        return YearMonth.parse(suffix, MONTH.suffixFormat).atDay(1).atStartOfDay();
+    }
+
+    public static PartitionInterval ofSuffix(String suffix) {
+        return suffix.length() == 8 ? DAY : MONTH;
+    }
+}
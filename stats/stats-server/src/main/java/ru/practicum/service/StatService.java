@@ -2,15 +2,37 @@ package ru.practicum.service;
 
 import ru.practicum.dto.StatisticsGetResponseDto;
 import ru.practicum.dto.StatisticsPostResponseDto;
+import ru.practicum.dto.ViewsRequestDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface StatService {
     StatisticsPostResponseDto hit(StatisticsPostResponseDto statisticsPostResponseDto);
 
+    void hits(List<StatisticsPostResponseDto> statisticsPostResponseDtos);
+
     List<StatisticsGetResponseDto> getStats(LocalDateTime start,
                                             LocalDateTime end,
                                             List<String> uris,
-                                            boolean unique);
+                                            boolean unique,
+                                            boolean exact,
+                                            Integer limit);
+
+    void streamStats(LocalDateTime start,
+                     LocalDateTime end,
+                     List<String> uris,
+                     boolean unique,
+                     boolean exact,
+                     Integer limit,
+                     Consumer<StatisticsGetResponseDto> sink);
+
+    /**
+     * Проверка параметров /stats; потоковая выдача вызывает её до начала записи ответа.
+     */
+    void validateStatsRequest(LocalDateTime start, LocalDateTime end, Integer limit);
+
+    Map<Long, Long> getViews(ViewsRequestDto viewsRequestDto);
 }
@@ -1,48 +1,250 @@
 package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.dto.StatisticsGetResponseDto;
 import ru.practicum.dto.StatisticsPostResponseDto;
+import ru.practicum.dto.ViewsRequestDto;
 import ru.practicum.mappers.StatMapper;
 import ru.practicum.model.Statistics;
+import ru.practicum.repository.StatisticsArchiveRepository;
 import ru.practicum.repository.StatisticsRepository;
+import ru.practicum.repository.StatisticsRollupRepository;
 import ru.practicum.repository.ViewStats;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class StatServiceImpl implements StatService {
+    private static final List<TimeGranularity> ROLLUP_LEVELS =
+            List.of(TimeGranularity.MINUTE, TimeGranularity.HOUR, TimeGranularity.DAY);
+    private static final LocalDateTime VIEWS_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    /* точные запросы по сырым хитам разворачивают IN (...) в параметр на каждый URI и встречают список один раз,
+       роллапы и скетчи передают его массивом; чанк держит оба пути далеко от лимита Postgres в 65535 параметров */
+    private static final int VIEWS_URIS_PER_QUERY = 10_000;
+
     private final StatisticsRepository statisticsRepository;
+    private final StatisticsRollupRepository statisticsRollupRepository;
+    private final UniqueSketchService uniqueSketchService;
+    private final StatisticsArchiveService archiveService;
+    private final StatisticsArchiveRepository archiveRepository;
+    private final HitRecorder hitRecorder;
+    private final HitIngestQueue hitIngestQueue;
+    @Value("${stats.rollup.query-enabled:true}")
+    private boolean rollupQueryEnabled;
+    @Value("${stats.archive.exact-unique-max-ips:1000000}")
+    private long exactUniqueMaxIps;
+    @Value("${stats.unique.hll.precision:12}")
+    private int hllPrecision;
 
     @Transactional
     @Override
     public StatisticsPostResponseDto hit(StatisticsPostResponseDto statisticsPostResponseDto) {
         Statistics statistics = StatMapper.fromDto(statisticsPostResponseDto);
-        return StatMapper.toDto(statisticsRepository.save(statistics));
+        if (hitIngestQueue.isEnabled()) {
+            hitIngestQueue.offer(statistics);
+        } else {
+            hitRecorder.record(List.of(statistics));
+        }
+        return StatMapper.toDto(statistics);
+    }
+
+    @Override
+    public void hits(List<StatisticsPostResponseDto> statisticsPostResponseDtos) {
+        List<Statistics> hits = statisticsPostResponseDtos.stream()
+                .map(StatMapper::fromDto)
+                .toList();
+        if (hitIngestQueue.isEnabled()) {
+            hits.forEach(hitIngestQueue::offer);
+            return;
+        }
+        hitRecorder.record(hits);
     }
 
     @Transactional
     @Override
-    public List<StatisticsGetResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    public List<StatisticsGetResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                                   boolean exact, Integer limit) {
+        List<StatisticsGetResponseDto> result = new ArrayList<>();
+        streamStats(start, end, uris, unique, exact, limit, result::add);
+        return result;
+    }
+
+    /**
+     * Отдаёт строки статистики в sink по мере чтения курсором, не собирая их в список.
+     * Приближённый подсчёт уникальных сливает скетчи в памяти и отдаёт результат после слияния.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique, boolean exact,
+                            Integer limit, Consumer<StatisticsGetResponseDto> sink) {
+        validateStatsRequest(start, end, limit);
+        LocalDateTime horizon = archiveService.horizon();
+        if (horizon != null && start.isBefore(horizon)) {
+            streamWithArchive(start, end, uris, unique, exact, limit, horizon, sink);
+            return;
+        }
+        if (!unique && rollupQueryEnabled) {
+            statisticsRollupRepository.streamStats(TimeSlicePlanner.plan(start, end, ROLLUP_LEVELS), uris, limit, sink);
+            return;
+        }
+        if (unique && !exact && uniqueSketchService.isEnabled()) {
+            uniqueSketchService.findUniqueStats(start, end, uris, limit).forEach(sink);
+            return;
+        }
+        try (Stream<ViewStats> rows = switch ((unique ? 2 : 0) + ((uris != null && !uris.isEmpty()) ? 1 : 0)) {
+            case 0 -> statisticsRepository.findStats(start, end, limit);
+            case 1 -> statisticsRepository.findStatsByUris(start, end, uris, limit);
+            case 2 -> statisticsRepository.findUniqueStats(start, end, limit);
+            case 3 -> statisticsRepository.findUniqueStatsByUris(start, end, uris, limit);
+            default -> throw new RuntimeException();
+        }) {
+            rows.map(v -> new StatisticsGetResponseDto(v.getApp(), v.getUri(), v.getHits()))
+                    .forEach(sink);
+        }
+    }
+
+    @Override
+    public void validateStatsRequest(LocalDateTime start, LocalDateTime end, Integer limit) {
         if (start.isAfter(end)) {
             throw new RuntimeException("время начала не может быть поздне, чем  время конца выборки");
         }
-        List<ViewStats> rows = switch ((unique ? 2 : 0) + ((uris != null && !uris.isEmpty()) ? 1 : 0)) {
-            case 0 -> statisticsRepository.findStats(start, end);
-            case 1 -> statisticsRepository.findStatsByUris(start, end, uris);
-            case 2 -> statisticsRepository.findUniqueStats(start, end);
-            case 3 -> statisticsRepository.findUniqueStatsByUris(start, end, uris);
-            default -> throw new RuntimeException();
-        };
+        if (limit != null && limit <= 0) {
+            throw new RuntimeException("limit должен быть больше нуля");
+        }
+    }
 
-        return rows.stream()
-                .map(v -> new StatisticsGetResponseDto(v.getApp(), v.getUri(), v.getHits()))
-                .toList();
+    /**
+     * Интервал, задевающий архив: [start, horizon) считается по файлам архива, [horizon, end] — тем же путём, что
+     * и без архива: хиты по роллапам, приближённые уникальные по HyperLogLog-скетчам, которые сливаются со скетчами
+     * секций архива. Только точные уникальные на стыке требуют объединения множеств IP; если различных IP больше
+     * stats.archive.exact-unique-max-ips, ответ считается по HyperLogLog-скетчам со стандартной ошибкой
+     * ~1.04/sqrt(2^precision). Результат строится целиком.
+     */
+    private void streamWithArchive(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                   boolean exact, Integer limit, LocalDateTime horizon,
+                                   Consumer<StatisticsGetResponseDto> sink) {
+        boolean archiveOnly = end.isBefore(horizon);
+        LocalDateTime archiveEnd = archiveOnly ? end : horizon;
+        Map<AppUri, Long> totals;
+        if (!unique) {
+            totals = countHits(start, end, uris, exact, horizon, archiveOnly, archiveEnd);
+        } else if (!exact && uniqueSketchService.isEnabled()) {
+            totals = countApproximateUniques(start, end, uris, horizon, archiveOnly, archiveEnd);
+        } else {
+            totals = countExactUniques(start, end, uris, horizon, archiveOnly, archiveEnd);
+            if (totals == null) {
+                log.warn("Точный подсчёт уникальных за [{}, {}] превысил {} IP, ответ по HyperLogLog-скетчам",
+                        start, end, exactUniqueMaxIps);
+                totals = countApproximateUniques(start, end, uris, horizon, archiveOnly, archiveEnd);
+            }
+        }
+        totals.entrySet().stream()
+                .map(e -> new StatisticsGetResponseDto(e.getKey().app(), e.getKey().uri(), e.getValue()))
+                .sorted(Comparator.comparing(StatisticsGetResponseDto::getHits).reversed())
+                .limit(limit != null ? limit : Long.MAX_VALUE)
+                .forEach(sink);
+    }
+
+    private Map<AppUri, Long> countHits(LocalDateTime start, LocalDateTime end, List<String> uris, boolean exact,
+                                        LocalDateTime horizon, boolean archiveOnly, LocalDateTime archiveEnd) {
+        Map<AppUri, Long> totals = archiveService.countHits(start, archiveEnd, archiveOnly, uris);
+        if (!archiveOnly) {
+            streamStats(horizon, end, uris, false, exact, null,
+                    row -> totals.merge(new AppUri(row.getApp(), row.getUri()), row.getHits(), Long::sum));
+        }
+        return totals;
+    }
+
+    private Map<AppUri, Long> countApproximateUniques(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                      LocalDateTime horizon, boolean archiveOnly,
+                                                      LocalDateTime archiveEnd) {
+        Map<AppUri, HyperLogLog> sketches = archiveService.findSketches(start, archiveEnd, archiveOnly, uris);
+        if (!archiveOnly && uniqueSketchService.isEnabled()) {
+            uniqueSketchService.findSketches(horizon, end, uris)
+                    .forEach((key, sketch) -> sketches.merge(key, sketch, HyperLogLog::merge));
+        } else if (!archiveOnly) {
+            archiveRepository.streamDistinctIps(horizon, end, uris, rs -> sketches
+                    .computeIfAbsent(new AppUri(rs.getString("app"), rs.getString("uri")),
+                            k -> new HyperLogLog(hllPrecision))
+                    .add(rs.getString("ip")));
+        }
+        Map<AppUri, Long> totals = new HashMap<>();
+        sketches.forEach((key, sketch) -> totals.put(key, sketch.estimate()));
+        return totals;
     }
 
+    /**
+     * @return null, если различных IP больше stats.archive.exact-unique-max-ips
+     */
+    @Nullable
+    private Map<AppUri, Long> countExactUniques(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                LocalDateTime horizon, boolean archiveOnly, LocalDateTime archiveEnd) {
+        Map<AppUri, Set<String>> ips = archiveService.findIps(start, archiveEnd, archiveOnly, uris, exactUniqueMaxIps);
+        if (ips == null) {
+            return null;
+        }
+        if (!archiveOnly) {
+            long[] collected = {ips.values().stream().mapToLong(Set::size).sum()};
+            archiveRepository.streamDistinctIps(horizon, end, uris, rs -> {
+                if (collected[0] <= exactUniqueMaxIps && ips
+                        .computeIfAbsent(new AppUri(rs.getString("app"), rs.getString("uri")), k -> new HashSet<>())
+                        .add(rs.getString("ip"))) {
+                    collected[0]++;
+                }
+            });
+            if (collected[0] > exactUniqueMaxIps) {
+                return null;
+            }
+        }
+        Map<AppUri, Long> totals = new HashMap<>();
+        ips.forEach((key, set) -> totals.put(key, (long) set.size()));
+        return totals;
+    }
 
+    /**
+     * Просмотры по id сущностей за окно запроса. Строки разных app суммируются, если app не задан.
+     */
+    @Transactional
+    @Override
+    public Map<Long, Long> getViews(ViewsRequestDto viewsRequestDto) {
+        LocalDateTime start = viewsRequestDto.getStart() != null
+                ? StatMapper.parseTime(viewsRequestDto.getStart())
+                : VIEWS_START;
+        LocalDateTime end = viewsRequestDto.getEnd() != null
+                ? StatMapper.parseTime(viewsRequestDto.getEnd())
+                : LocalDateTime.now();
+        String app = viewsRequestDto.getApp();
+        Map<String, Long> idsByUri = new HashMap<>();
+        Map<Long, Long> views = new HashMap<>();
+        for (Long id : viewsRequestDto.getIds()) {
+            idsByUri.put(viewsRequestDto.getUriPrefix() + id, id);
+            views.put(id, 0L);
+        }
+        List<String> uris = List.copyOf(idsByUri.keySet());
+        for (int from = 0; from < uris.size(); from += VIEWS_URIS_PER_QUERY) {
+            List<String> chunk = uris.subList(from, Math.min(from + VIEWS_URIS_PER_QUERY, uris.size()));
+            for (StatisticsGetResponseDto stats : getStats(start, end, chunk, viewsRequestDto.isUnique(), false, null)) {
+                if (app == null || app.equals(stats.getApp())) {
+                    views.merge(idsByUri.get(stats.getUri()), stats.getHits(), Long::sum);
+                }
+            }
+        }
+        return views;
+    }
 }
@@ -0,0 +1,276 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.repository.StatisticsArchiveFile;
+import ru.practicum.repository.StatisticsArchiveRepository;
+import ru.practicum.repository.StatisticsArchiveSketches;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Колоночный архив закрытых секций statistics на локальном диске. Секция, вышедшая за срок хранения при
+ * stats.partition.expired-action=ARCHIVE, выгружается в файл и удаляется из таблицы; запросы /stats
+ * по интервалам до горизонта архива (конца самой поздней выгруженной секции) читают эти файлы. Выгруженные секции
+ * учитываются в statistics_archive той же транзакцией, что удаляет их из таблицы, и горизонт читается оттуда
+ * на каждый запрос: экземпляр, не видевший выгрузки, не пропустит хиты, которых в таблице уже нет.
+ * Рядом с каждым файлом лежат HyperLogLog-скетчи его секции для приближённого подсчёта уникальных.
+ * Разобранные файлы и скетчи держатся в кэшах, каждый ограничен stats.archive.cache-size.
+ * Несколько экземпляров stats-server должны видеть один каталог архива.
+ */
+@Slf4j
+@Service
+public class StatisticsArchiveService {
+    private final StatisticsArchiveRepository archiveRepository;
+    private final Path directory;
+    private final NavigableMap<LocalDateTime, ArchivedPartition> partitions = new ConcurrentSkipListMap<>();
+    private final LoadingCache<Path, StatisticsArchiveFile> files;
+    /* ключ — путь файла архива, значение — скетчи его секции */
+    private final LoadingCache<Path, Map<AppUri, HyperLogLog>> sketches;
+    private final int precision;
+
+    public StatisticsArchiveService(StatisticsArchiveRepository archiveRepository,
+                                    @Value("${stats.archive.dir:stats-archive}") Path directory,
+                                    @Value("${stats.archive.cache-size:256MB}") DataSize cacheSize,
+                                    @Value("${stats.unique.hll.precision:12}") int precision) {
+        this.archiveRepository = archiveRepository;
+        this.directory = directory;
+        this.precision = precision;
+        this.files = Caffeine.newBuilder()
+                .maximumWeight(cacheSize.toBytes())
+                .weigher((Path path, StatisticsArchiveFile file) -> (int) Math.min(Integer.MAX_VALUE, file.weight()))
+                .build(StatisticsArchiveFile::read);
+        this.sketches = Caffeine.newBuilder()
+                .maximumWeight(cacheSize.toBytes())
+                .weigher((Path path, Map<AppUri, HyperLogLog> map) -> (int) Math.min(Integer.MAX_VALUE,
+                        map.values().stream().mapToLong(sketch -> (1L << sketch.getPrecision()) + 128).sum()))
+                .build(this::loadSketches);
+    }
+
+    /**
+     * Регистрирует в statistics_archive файлы, выгруженные до её появления.
+     */
+    @PostConstruct
+    public void init() {
+        refresh();
+        partitions.values().forEach(partition -> archiveRepository.registerArchivedIfDropped(
+                partitionName(partition.path()), partition.from(), partition.to()));
+    }
+
+    /**
+     * Перечитывает список файлов: архив мог пополнить другой экземпляр, а удалённые файлы выпадают из списка.
+     */
+    public void refresh() {
+        if (!Files.isDirectory(directory)) {
+            partitions.clear();
+            return;
+        }
+        try (Stream<Path> list = Files.list(directory)) {
+            Set<Path> found = list
+                    .filter(path -> path.getFileName().toString().endsWith(StatisticsArchiveFile.EXTENSION))
+                    .collect(Collectors.toSet());
+            partitions.values().removeIf(partition -> !found.contains(partition.path()));
+            found.forEach(this::register);
+        } catch (IOException e) {
+            log.error("Не удалось прочитать каталог архива статистики {}", directory, e);
+        }
+    }
+
+    /**
+     * Конец самой поздней выгруженной секции; хитов раньше него в таблице statistics нет.
+     * Если секцию выгрузил другой экземпляр, список файлов перечитывается.
+     */
+    @Nullable
+    public LocalDateTime horizon() {
+        LocalDateTime horizon = archiveRepository.findHorizon();
+        if (horizon != null && (partitions.isEmpty() || partitions.lastEntry().getValue().to().isBefore(horizon))) {
+            refresh();
+        }
+        return horizon;
+    }
+
+    /**
+     * Выгружает секцию в архив. Вызывается в транзакции обслуживания секций до её удаления:
+     * секция блокируется от записи, число строк файла сверяется с таблицей.
+     */
+    public void export(String partition, LocalDateTime from, LocalDateTime to) {
+        archiveRepository.lockPartition(partition);
+        StatisticsArchiveFile.Writer writer = new StatisticsArchiveFile.Writer(from, to);
+        Map<AppUri, HyperLogLog> partitionSketches = new HashMap<>();
+        archiveRepository.streamPartition(partition, rs -> {
+            String app = rs.getString("app");
+            String uri = rs.getString("uri");
+            String ip = rs.getString("ip");
+            writer.add(app, uri, ip, rs.getTimestamp("call_time").toLocalDateTime());
+            partitionSketches.computeIfAbsent(new AppUri(app, uri), k -> new HyperLogLog(precision)).add(ip);
+        });
+        long expected = archiveRepository.countPartition(partition);
+        if (writer.getRows() != expected) {
+            throw new IllegalStateException("Выгрузка секции " + partition + " неполна: " + writer.getRows()
+                    + " из " + expected + " строк");
+        }
+        Path path = directory.resolve(partition + StatisticsArchiveFile.EXTENSION);
+        try {
+            Files.createDirectories(directory);
+            StatisticsArchiveSketches.write(StatisticsArchiveSketches.pathFor(path), partitionSketches);
+            writer.write(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать архив секции " + partition, e);
+        }
+        archiveRepository.registerArchived(partition, from, to);
+        files.invalidate(path);
+        sketches.invalidate(path);
+        partitions.put(from, new ArchivedPartition(from, to, path));
+        log.info("Секция {} выгружена в архив {}: {} хитов, {} байт", partition, path, writer.getRows(),
+                path.toFile().length());
+    }
+
+    /**
+     * Число хитов по (app, uri) за [start, end) или [start, end] по архиву.
+     */
+    public Map<AppUri, Long> countHits(LocalDateTime start, LocalDateTime end, boolean endInclusive,
+                                       @Nullable Collection<String> uris) {
+        Map<AppUri, Long> totals = new HashMap<>();
+        for (StatisticsArchiveFile file : files(overlapping(start, end))) {
+            Map<Long, long[]> counts = new HashMap<>();
+            file.forEachHit(start, end, endInclusive, uris,
+                    (app, uri, ip) -> counts.computeIfAbsent(pair(app, uri), k -> new long[1])[0]++);
+            counts.forEach((pair, count) -> totals.merge(key(file, pair), count[0], Long::sum));
+        }
+        return totals;
+    }
+
+    /**
+     * Различные IP по (app, uri) за [start, end) или [start, end] по архиву, для точного подсчёта уникальных.
+     *
+     * @return null, если различных пар (app, uri, ip) больше maxIps
+     */
+    @Nullable
+    public Map<AppUri, Set<String>> findIps(LocalDateTime start, LocalDateTime end, boolean endInclusive,
+                                            @Nullable Collection<String> uris, long maxIps) {
+        Map<AppUri, Set<String>> ips = new HashMap<>();
+        long collected = 0;
+        for (StatisticsArchiveFile file : files(overlapping(start, end))) {
+            Map<Long, Set<Integer>> indexes = new HashMap<>();
+            file.forEachHit(start, end, endInclusive, uris,
+                    (app, uri, ip) -> indexes.computeIfAbsent(pair(app, uri), k -> new HashSet<>()).add(ip));
+            for (Map.Entry<Long, Set<Integer>> entry : indexes.entrySet()) {
+                Set<String> target = ips.computeIfAbsent(key(file, entry.getKey()), k -> new HashSet<>());
+                for (Integer ip : entry.getValue()) {
+                    if (target.add(file.ip(ip)) && ++collected > maxIps) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return ips;
+    }
+
+    /**
+     * HyperLogLog-скетчи уникальных IP по (app, uri) за [start, end) или [start, end] по архиву. Секции, целиком
+     * попавшие в интервал, берут скетчи из файла .hll рядом с архивом, частично попавшие обходят свои хиты.
+     * Возвращаемые скетчи принадлежат вызывающему, их можно сливать дальше.
+     */
+    public Map<AppUri, HyperLogLog> findSketches(LocalDateTime start, LocalDateTime end, boolean endInclusive,
+                                                 @Nullable Collection<String> uris) {
+        Map<AppUri, HyperLogLog> merged = new HashMap<>();
+        Set<String> uriFilter = uris == null || uris.isEmpty() ? null : Set.copyOf(uris);
+        for (ArchivedPartition partition : overlapping(start, end)) {
+            if (!start.isAfter(partition.from()) && !end.isBefore(partition.to())) {
+                sketches.get(partition.path()).forEach((key, sketch) -> {
+                    if (uriFilter == null || uriFilter.contains(key.uri())) {
+                        merged.compute(key, (k, target) -> (target != null ? target : new HyperLogLog(precision))
+                                .merge(sketch));
+                    }
+                });
+                continue;
+            }
+            StatisticsArchiveFile file = files.get(partition.path());
+            Map<Long, HyperLogLog> byPair = new HashMap<>();
+            file.forEachHit(start, end, endInclusive, uris, (app, uri, ip) -> byPair
+                    .computeIfAbsent(pair(app, uri), k -> new HyperLogLog(precision)).add(file.ip(ip)));
+            byPair.forEach((pair, sketch) -> merged.merge(key(file, pair), sketch, HyperLogLog::merge));
+        }
+        return merged;
+    }
+
+    private List<ArchivedPartition> overlapping(LocalDateTime start, LocalDateTime end) {
+        return partitions.values().stream()
+                .filter(p -> p.from().isBefore(end) || p.from().isEqual(end))
+                .filter(p -> p.to().isAfter(start))
+                .toList();
+    }
+
+    private List<StatisticsArchiveFile> files(List<ArchivedPartition> overlapping) {
+        return overlapping.stream()
+                .map(p -> files.get(p.path()))
+                .toList();
+    }
+
+    /**
+     * Файл скетчей отсутствует у архивов, выгруженных до его появления, или повреждён: тогда скетчи строятся
+     * по хитам архива и файл записывается заново.
+     */
+    private Map<AppUri, HyperLogLog> loadSketches(Path archive) {
+        Path path = StatisticsArchiveSketches.pathFor(archive);
+        if (Files.exists(path)) {
+            try {
+                return StatisticsArchiveSketches.read(path);
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Файл скетчей архива статистики {} повреждён, строится заново", path, e);
+            }
+        }
+        Map<AppUri, HyperLogLog> built = StatisticsArchiveSketches.build(files.get(archive), precision);
+        try {
+            StatisticsArchiveSketches.write(path, built);
+        } catch (IOException e) {
+            log.warn("Не удалось записать скетчи архива статистики {}", path, e);
+        }
+        return built;
+    }
+
+    private void register(Path path) {
+        try {
+            LocalDateTime[] interval = StatisticsArchiveFile.readInterval(path);
+            partitions.put(interval[0], new ArchivedPartition(interval[0], interval[1], path));
+        } catch (IOException e) {
+            log.error("Пропущен повреждённый файл архива статистики {}", path, e);
+        }
+    }
+
+    private static String partitionName(Path path) {
+        String file = path.getFileName().toString();
+        return file.substring(0, file.length() - StatisticsArchiveFile.EXTENSION.length());
+    }
+
+    private static long pair(int app, int uri) {
+        return ((long) app << Integer.SIZE) | (uri & 0xffffffffL);
+    }
+
+    private static AppUri key(StatisticsArchiveFile file, long pair) {
+        return new AppUri(file.app((int) (pair >>> Integer.SIZE)), file.uri((int) pair));
+    }
+
+    private record ArchivedPartition(LocalDateTime from, LocalDateTime to, Path path) {
+    }
+}
@@ -0,0 +1,62 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.model.Statistics;
+import ru.practicum.repository.HitRow;
+import ru.practicum.repository.StatisticsDimensionRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Заменяет app и uri хитов ключами справочников. Ключ значения не меняется никогда, поэтому держится в кэше
+ * без срока жизни; в базу ходят только промахи, одним запросом на пачку.
+ * При старте переводит таблицу statistics прежней схемы со строковых app и uri на ключи.
+ */
+@Slf4j
+@Service
+public class StatisticsDimensionService {
+    private final StatisticsDimensionRepository dimensionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Integer> appIds;
+    private final Cache<String, Integer> uriIds;
+
+    public StatisticsDimensionService(StatisticsDimensionRepository dimensionRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${stats.dimension.cache-size:100000}") long cacheSize) {
+        this.dimensionRepository = dimensionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.appIds = Caffeine.newBuilder().maximumSize(cacheSize).build();
+        this.uriIds = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    @PostConstruct
+    public void migrateLegacySchema() {
+        transactionTemplate.executeWithoutResult(status -> {
+            dimensionRepository.lockMigration();
+            if (dimensionRepository.hasColumn("statistics", "uri")) {
+                log.info("Хиты переведены на ключи справочников app и uri: {} строк",
+                        dimensionRepository.migrateStatistics());
+            }
+        });
+    }
+
+    public List<HitRow> resolve(List<Statistics> hits) {
+        Map<String, Integer> apps = appIds.getAll(hits.stream().map(Statistics::getApp).collect(Collectors.toSet()),
+                missing -> dimensionRepository.internApps(Set.copyOf(missing)));
+        Map<String, Integer> uris = uriIds.getAll(hits.stream().map(Statistics::getUri).collect(Collectors.toSet()),
+                missing -> dimensionRepository.internUris(Set.copyOf(missing)));
+        return hits.stream()
+                .map(hit -> new HitRow(apps.get(hit.getApp()), uris.get(hit.getUri()), hit.getIp(), hit.getTimestamp()))
+                .toList();
+    }
+}
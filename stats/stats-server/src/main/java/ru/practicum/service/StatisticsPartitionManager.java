@@ -0,0 +1,186 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.repository.StatisticsPartitionRepository;
+import ru.practicum.repository.StatisticsRollupRepository;
+import ru.practicum.repository.StatisticsSketchRepository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Ведёт секции таблицы statistics по call_time: заранее создаёт будущие, переносит в свои секции строки,
+ * попавшие в секцию по умолчанию, и удаляет, отсоединяет или выгружает в колоночный архив секции старше срока хранения.
+ * Роллапы и скетчи уникальных за истёкший период удаляются в той же транзакции, чтобы все пути подсчёта
+ * видели одну и ту же историю.
+ * Запросы фильтруют call_time без обёрток в функции, поэтому Postgres отсекает лишние секции.
+ */
+@Slf4j
+@Service
+@DependsOn("statisticsDimensionService")
+public class StatisticsPartitionManager {
+    private final StatisticsPartitionRepository partitionRepository;
+    private final StatisticsArchiveService archiveService;
+    private final StatisticsRollupRepository rollupRepository;
+    private final StatisticsSketchRepository sketchRepository;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionInterval interval;
+    private final int premake;
+    private final int retention;
+    private final ExpiredAction expiredAction;
+
+    public StatisticsPartitionManager(StatisticsPartitionRepository partitionRepository,
+                                      StatisticsArchiveService archiveService,
+                                      StatisticsRollupRepository rollupRepository,
+                                      StatisticsSketchRepository sketchRepository,
+                                      DataSource dataSource,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${stats.partition.interval:MONTH}") PartitionInterval interval,
+                                      @Value("${stats.partition.premake:3}") int premake,
+                                      @Value("${stats.partition.retention:0}") int retention,
+                                      @Value("${stats.partition.expired-action:DETACH}") ExpiredAction expiredAction) {
+        this.partitionRepository = partitionRepository;
+        this.archiveService = archiveService;
+        this.rollupRepository = rollupRepository;
+        this.sketchRepository = sketchRepository;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.interval = interval;
+        this.premake = premake;
+        this.retention = retention;
+        this.expiredAction = expiredAction;
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            partitionRepository.lockMaintenance();
+            if (!partitionRepository.isPartitioned()) {
+                migrateLegacyTable();
+            }
+            maintain();
+        });
+    }
+
+    @Scheduled(cron = "${stats.partition.maintenance-cron:0 5 * * * *}")
+    public void scheduledMaintenance() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (partitionRepository.tryMaintenanceLock()) {
+                maintain();
+            }
+        });
+        archiveService.refresh();
+    }
+
+    private void migrateLegacyTable() {
+        log.info("Таблица statistics не секционирована, переносим данные в секционированную");
+        partitionRepository.renameLegacyTable();
+        ScriptUtils.executeSqlScript(DataSourceUtils.getConnection(dataSource), new ClassPathResource("schema.sql"));
+        partitionRepository.createDefaultPartition();
+        List<StatisticsPartition> existing = new ArrayList<>();
+        for (LocalDateTime start : partitionRepository.findLegacyIntervals(interval.getSqlUnit())) {
+            createIfMissing(start, existing);
+        }
+        log.info("В секционированную таблицу statistics перенесено {} хитов", partitionRepository.copyLegacyRows());
+        /* индексы schema.sql при старте успели построиться на старой таблице и ушли вместе с ней:
+           повторный прогон строит их на секционированной уже после переноса строк */
+        ScriptUtils.executeSqlScript(DataSourceUtils.getConnection(dataSource), new ClassPathResource("schema.sql"));
+    }
+
+    private void maintain() {
+        partitionRepository.createDefaultPartition();
+        LocalDateTime current = interval.floor(LocalDateTime.now());
+        LocalDateTime cutoff = retention > 0 ? interval.minus(current, retention) : null;
+        List<StatisticsPartition> existing = new ArrayList<>(findPartitions());
+
+        Set<LocalDateTime> wanted = new TreeSet<>();
+        LocalDateTime start = current;
+        for (int i = 0; i <= premake; i++) {
+            wanted.add(start);
+            start = interval.next(start);
+        }
+        wanted.addAll(partitionRepository.findDefaultPartitionIntervals(interval.getSqlUnit()));
+        for (LocalDateTime partitionStart : wanted) {
+            if (cutoff == null || !partitionStart.isBefore(cutoff)) {
+                createIfMissing(partitionStart, existing);
+            }
+        }
+
+        if (cutoff != null) {
+            for (StatisticsPartition partition : existing) {
+                if (!partition.to().isAfter(cutoff)) {
+                    expire(partition);
+                }
+            }
+            partitionRepository.deleteDefaultPartitionRowsBefore(cutoff);
+            /* граница секций кратна суткам, так что бакеты любой гранулярности не пересекают cutoff */
+            int rollups = rollupRepository.deleteBefore(cutoff);
+            int sketches = sketchRepository.deleteBefore(cutoff);
+            if (rollups > 0 || sketches > 0) {
+                log.info("По сроку хранения до {} удалено бакетов: {}, скетчей: {}", cutoff, rollups, sketches);
+            }
+        }
+    }
+
+    private void createIfMissing(LocalDateTime start, List<StatisticsPartition> existing) {
+        LocalDateTime end = interval.next(start);
+        boolean covered = existing.stream()
+                .anyMatch(p -> p.from().isBefore(end) && start.isBefore(p.to()));
+        if (covered) {
+            return;
+        }
+        String name = StatisticsPartitionRepository.PARTITION_PREFIX + interval.suffix(start);
+        partitionRepository.createPartition(name, start, end);
+        existing.add(new StatisticsPartition(name, start, end));
+        log.info("Создана секция {} [{}, {})", name, start, end);
+    }
+
+    private void expire(StatisticsPartition partition) {
+        if (expiredAction == ExpiredAction.DROP) {
+            partitionRepository.dropPartition(partition.name());
+            log.info("Секция {} удалена по сроку хранения", partition.name());
+        } else if (expiredAction == ExpiredAction.ARCHIVE) {
+            archiveService.export(partition.name(), partition.from(), partition.to());
+            partitionRepository.dropPartition(partition.name());
+            log.info("Секция {} удалена из таблицы после выгрузки в архив", partition.name());
+        } else {
+            String archive = partitionRepository.detachPartition(partition.name());
+            log.info("Секция {} отсоединена в архив {}", partition.name(), archive);
+        }
+    }
+
+    private List<StatisticsPartition> findPartitions() {
+        return partitionRepository.findPartitionNames().stream()
+                .filter(name -> name.startsWith(StatisticsPartitionRepository.PARTITION_PREFIX))
+                .map(name -> {
+                    String suffix = name.substring(StatisticsPartitionRepository.PARTITION_PREFIX.length());
+                    LocalDateTime from = PartitionInterval.parseSuffix(suffix);
+                    return new StatisticsPartition(name, from, PartitionInterval.ofSuffix(suffix).next(from));
+                })
+                .toList();
+    }
+
+    public enum ExpiredAction {
+        DROP,
+        DETACH,
+        ARCHIVE
+    }
+
+    private record StatisticsPartition(String name, LocalDateTime from, LocalDateTime to) {
+    }
+}
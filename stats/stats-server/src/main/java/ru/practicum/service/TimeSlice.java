@@ -0,0 +1,25 @@
+package ru.practicum.service;
+
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Участок запрошенного интервала: либо набор готовых бакетов одной гранулярности [from, to),
+ * либо «сырой» хвост, который считается по таблице statistics (granularity == null).
+ */
+public record TimeSlice(@Nullable TimeGranularity granularity, LocalDateTime from, LocalDateTime to,
+                        boolean toInclusive) {
+
+    public static TimeSlice raw(LocalDateTime from, LocalDateTime to, boolean toInclusive) {
+        return new TimeSlice(null, from, to, toInclusive);
+    }
+
+    public static TimeSlice buckets(TimeGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        return new TimeSlice(granularity, from, to, false);
+    }
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.service;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбивает интервал [start, end] на минимальный набор крупных бакетов и сырые края:
+ * сырой край до первой границы самой мелкой гранулярности, затем бакеты от мелких к крупным и обратно,
+ * сырой край от последней границы до end включительно.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TimeSlicePlanner {
+
+    /**
+     * @param levels гранулярности от мелкой к крупной, например MINUTE, HOUR, DAY
+     */
+    public static List<TimeSlice> plan(LocalDateTime start, LocalDateTime end, List<TimeGranularity> levels) {
+        List<TimeSlice> slices = new ArrayList<>();
+        TimeGranularity finest = levels.getFirst();
+        LocalDateTime alignedStart = finest.ceil(start);
+        LocalDateTime alignedEnd = finest.floor(end);
+        if (!alignedStart.isBefore(alignedEnd)) {
+            slices.add(TimeSlice.raw(start, end, true));
+            return slices;
+        }
+        if (start.isBefore(alignedStart)) {
+            slices.add(TimeSlice.raw(start, alignedStart, false));
+        }
+        cover(alignedStart, alignedEnd, levels, 0, slices);
+        slices.add(TimeSlice.raw(alignedEnd, end, true));
+        return slices;
+    }
+
+    private static void cover(LocalDateTime from, LocalDateTime to, List<TimeGranularity> levels, int level,
+                              List<TimeSlice> slices) {
+        TimeGranularity current = levels.get(level);
+        if (level == levels.size() - 1) {
+            slices.add(TimeSlice.buckets(current, from, to));
+            return;
+        }
+        TimeGranularity coarser = levels.get(level + 1);
+        LocalDateTime coarseFrom = coarser.ceil(from);
+        LocalDateTime coarseTo = coarser.floor(to);
+        if (!coarseFrom.isBefore(coarseTo)) {
+            slices.add(TimeSlice.buckets(current, from, to));
+            return;
+        }
+        if (from.isBefore(coarseFrom)) {
+            slices.add(TimeSlice.buckets(current, from, coarseFrom));
+        }
+        cover(coarseFrom, coarseTo, levels, level + 1, slices);
+        if (coarseTo.isBefore(to)) {
+            slices.add(TimeSlice.buckets(current, coarseTo, to));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.dto.StatisticsGetResponseDto;
+import ru.practicum.model.Statistics;
+import ru.practicum.repository.StatisticsRollupRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Самые посещаемые URI за последние минуты без обращения к базе: кольцо поминутных счётчиков в памяти
+ * и закэшированный топ на каждое запрошенное окно, пересчитываемый не чаще раза в refresh-ms.
+ * Кольцо заполняется по минутным бакетам statistics_rollup при старте и, если задано, периодически
+ * пересинхронизируется с ними — тогда топ учитывает хиты, записанные другими экземплярами stats-server.
+ */
+@Slf4j
+@Service
+public class TrendingService {
+    private final StatisticsRollupRepository statisticsRollupRepository;
+    private final int maxWindowMinutes;
+    private final int maxLimit;
+    private final long refreshMillis;
+    private final Map<Integer, TopSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    private volatile AtomicReferenceArray<MinuteBucket> ring;
+
+    public TrendingService(StatisticsRollupRepository statisticsRollupRepository,
+                           @Value("${stats.trending.max-window-minutes:60}") int maxWindowMinutes,
+                           @Value("${stats.trending.max-limit:100}") int maxLimit,
+                           @Value("${stats.trending.refresh-ms:1000}") long refreshMillis) {
+        if (maxWindowMinutes <= 0) {
+            throw new IllegalArgumentException("stats.trending.max-window-minutes должен быть больше нуля");
+        }
+        this.statisticsRollupRepository = statisticsRollupRepository;
+        this.maxWindowMinutes = maxWindowMinutes;
+        this.maxLimit = maxLimit;
+        this.refreshMillis = refreshMillis;
+        this.ring = new AtomicReferenceArray<>(maxWindowMinutes);
+    }
+
+    /**
+     * Учитывает хиты после фиксации транзакции записи: откаченная пачка не должна попасть в топ.
+     */
+    public void record(List<Statistics> hits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count(ring, hits);
+                }
+            });
+        } else {
+            count(ring, hits);
+        }
+    }
+
+    /**
+     * Перестраивает кольцо по минутным бакетам из базы.
+     */
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long currentMinute = minuteOf(LocalDateTime.now());
+        LocalDateTime from = ofMinute(currentMinute - maxWindowMinutes + 1);
+        AtomicReferenceArray<MinuteBucket> rebuilt = new AtomicReferenceArray<>(maxWindowMinutes);
+        /* бакеты из будущего заняли бы ячейки кольца и вытеснили текущие минуты */
+        statisticsRollupRepository.streamMinuteBuckets(from, ofMinute(currentMinute + 1), rs -> {
+            long minute = minuteOf(rs.getTimestamp("bucket_start").toLocalDateTime());
+            bucket(rebuilt, minute).add(new AppUri(rs.getString("app"), rs.getString("uri")), rs.getLong("hits"));
+        });
+        ring = rebuilt;
+        snapshots.clear();
+    }
+
+    @Scheduled(cron = "${stats.trending.resync-cron:-}")
+    public void resync() {
+        rebuild();
+        log.debug("Счётчики трендов пересинхронизированы с минутными бакетами");
+    }
+
+    public List<StatisticsGetResponseDto> getTrending(int windowMinutes, int limit) {
+        if (windowMinutes <= 0 || windowMinutes > maxWindowMinutes) {
+            throw new RuntimeException("window должен быть в диапазоне 1.." + maxWindowMinutes + " минут");
+        }
+        if (limit <= 0 || limit > maxLimit) {
+            throw new RuntimeException("limit должен быть в диапазоне 1.." + maxLimit);
+        }
+        long now = System.currentTimeMillis();
+        TopSnapshot snapshot = snapshots.compute(windowMinutes, (w, current) -> {
+            if (current != null && now - current.builtAt() < refreshMillis && current.limit() >= limit) {
+                return current;
+            }
+            int size = current != null ? Math.max(limit, current.limit()) : limit;
+            return new TopSnapshot(now, size, top(w, size));
+        });
+        List<StatisticsGetResponseDto> rows = snapshot.rows();
+        return rows.size() > limit ? rows.subList(0, limit) : rows;
+    }
+
+    private List<StatisticsGetResponseDto> top(int windowMinutes, int limit) {
+        AtomicReferenceArray<MinuteBucket> current = ring;
+        long currentMinute = minuteOf(LocalDateTime.now());
+        Map<AppUri, Long> totals = new HashMap<>();
+        for (long minute = currentMinute - windowMinutes + 1; minute <= currentMinute; minute++) {
+            MinuteBucket bucket = current.get(index(minute));
+            if (bucket != null && bucket.minute() == minute) {
+                bucket.counts().forEach((key, hits) -> totals.merge(key, hits.sum(), Long::sum));
+            }
+        }
+        /* min-куча размера limit: O(n log k) вместо полной сортировки всех URI окна */
+        PriorityQueue<Map.Entry<AppUri, Long>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<AppUri, Long> entry : totals.entrySet()) {
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (entry.getValue() > heap.peek().getValue()) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<StatisticsGetResponseDto> rows = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<AppUri, Long> entry = heap.poll();
+            rows.add(new StatisticsGetResponseDto(entry.getKey().app(), entry.getKey().uri(), entry.getValue()));
+        }
+        Collections.reverse(rows);
+        return List.copyOf(rows);
+    }
+
+    private void count(AtomicReferenceArray<MinuteBucket> target, List<Statistics> hits) {
+        long currentMinute = minuteOf(LocalDateTime.now());
+        for (Statistics hit : hits) {
+            long minute = minuteOf(hit.getTimestamp());
+            /* хиты вне окна кольца или из будущего в тренды не попадают */
+            if (minute > currentMinute || minute <= currentMinute - maxWindowMinutes) {
+                continue;
+            }
+            bucket(target, minute).add(new AppUri(hit.getApp(), hit.getUri()), 1);
+        }
+    }
+
+    /**
+     * Бакет минуты в кольце; устаревший бакет той же ячейки заменяется новым пустым.
+     */
+    private MinuteBucket bucket(AtomicReferenceArray<MinuteBucket> target, long minute) {
+        int index = index(minute);
+        while (true) {
+            MinuteBucket bucket = target.get(index);
+            if (bucket != null && bucket.minute() == minute) {
+                return bucket;
+            }
+            if (bucket != null && bucket.minute() > minute) {
+                return new MinuteBucket(minute, new ConcurrentHashMap<>());
+            }
+            MinuteBucket fresh = new MinuteBucket(minute, new ConcurrentHashMap<>());
+            if (target.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int index(long minute) {
+        return (int) Math.floorMod(minute, (long) maxWindowMinutes);
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime ofMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private record MinuteBucket(long minute, ConcurrentHashMap<AppUri, LongAdder> counts) {
+        void add(AppUri key, long hits) {
+            counts.computeIfAbsent(key, k -> new LongAdder()).add(hits);
+        }
+    }
+
+    private record TopSnapshot(long builtAt, int limit, List<StatisticsGetResponseDto> rows) {
+    }
+}
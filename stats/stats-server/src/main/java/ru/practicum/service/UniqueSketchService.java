@@ -0,0 +1,144 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.StatisticsGetResponseDto;
+import ru.practicum.repository.BucketKey;
+import ru.practicum.repository.HitRow;
+import ru.practicum.repository.StatisticsSketchRepository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Приближённый подсчёт уникальных посетителей по HyperLogLog-скетчам вместо COUNT(DISTINCT ip).
+ * Скетчи ведутся только при включённом режиме; при запуске достраиваются по хитам, пришедшим без них.
+ */
+@Slf4j
+@Service
+public class UniqueSketchService {
+    /* минутные скетчи слишком дороги по месту: края до часа досчитываются по сырым IP */
+    private static final List<TimeGranularity> LEVELS = List.of(TimeGranularity.HOUR, TimeGranularity.DAY);
+    private static final int BACKFILL_BATCH = 500;
+    private static final LocalDateTime BACKFILL_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final StatisticsSketchRepository sketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int precision;
+
+    public UniqueSketchService(StatisticsSketchRepository sketchRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${stats.unique.hll.enabled:false}") boolean enabled,
+                               @Value("${stats.unique.hll.precision:12}") int precision) {
+        if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION) {
+            throw new IllegalArgumentException("stats.unique.hll.precision должен быть в диапазоне 4..16");
+        }
+        this.sketchRepository = sketchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.precision = precision;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Transactional
+    public void record(List<HitRow> hits) {
+        if (!enabled) {
+            return;
+        }
+        Map<BucketKey, HyperLogLog> sketches = new TreeMap<>(BucketKey.ORDER);
+        for (HitRow hit : hits) {
+            for (TimeGranularity granularity : LEVELS) {
+                BucketKey key = new BucketKey(granularity, granularity.floor(hit.timestamp()), hit.appId(),
+                        hit.uriId());
+                sketches.computeIfAbsent(key, k -> new HyperLogLog(precision)).add(hit.ip());
+            }
+        }
+        sketchRepository.merge(sketches);
+    }
+
+    /**
+     * Скетчи сливаются в памяти по (app, uri), поэтому результат строится целиком; limit отсекает хвост после сортировки.
+     */
+    public List<StatisticsGetResponseDto> findUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                          Integer limit) {
+        return findSketches(start, end, uris).entrySet().stream()
+                .map(e -> new StatisticsGetResponseDto(e.getKey().app(), e.getKey().uri(), e.getValue().estimate()))
+                .sorted(Comparator.comparing(StatisticsGetResponseDto::getHits).reversed())
+                .limit(limit != null ? limit : Long.MAX_VALUE)
+                .toList();
+    }
+
+    /**
+     * Слитые скетчи по (app, uri) за [start, end]; их можно сливать дальше, например со скетчами архива.
+     */
+    public Map<AppUri, HyperLogLog> findSketches(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        Map<AppUri, HyperLogLog> merged = new HashMap<>();
+        sketchRepository.findSketchParts(TimeSlicePlanner.plan(start, end, LEVELS), uris, rs -> {
+            AppUri key = new AppUri(rs.getString("app"), rs.getString("uri"));
+            byte[] sketch = rs.getBytes("sketch");
+            if (sketch != null) {
+                merged.merge(key, HyperLogLog.fromBytes(sketch), HyperLogLog::merge);
+            } else {
+                merged.computeIfAbsent(key, k -> new HyperLogLog(precision)).add(rs.getString("ip"));
+            }
+        });
+        return merged;
+    }
+
+    /**
+     * Достраивает скетчи от последнего сохранённого бакета до текущего момента, а без скетчей — по всей истории.
+     * Так закрывается и первое включение, и разрыв после периода, когда режим был выключен. История читается
+     * посуточными окнами, каждое в своей транзакции и без блокировки таблиц: запись хитов не ждёт дозаполнения.
+     * Скетчи сливаются с сохранёнными, а IP, учтённый дважды — при пересчёте последнего бакета или параллельной
+     * записью хита, — оценку не меняет.
+     */
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime end = LocalDateTime.now();
+        for (TimeGranularity granularity : LEVELS) {
+            LocalDateTime latest = sketchRepository.findLatestBucket(granularity);
+            LocalDateTime from = sketchRepository.findFirstHitTime(latest != null ? latest : BACKFILL_START);
+            int windows = 0;
+            while (from != null && !from.isAfter(end)) {
+                LocalDateTime windowStart = from;
+                /* сутки кратны бакетам обеих гранулярностей: бакет не делится между окнами */
+                LocalDateTime windowEnd = TimeGranularity.DAY.floor(windowStart).plusDays(1);
+                transactionTemplate.executeWithoutResult(status -> backfillWindow(granularity, windowStart, windowEnd));
+                windows++;
+                from = sketchRepository.findFirstHitTime(windowEnd);
+            }
+            log.info("HyperLogLog-скетчи {} достроены по хитам начиная с {}: {} окон", granularity,
+                    latest != null ? latest : "начала истории", windows);
+        }
+    }
+
+    private void backfillWindow(TimeGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        Map<BucketKey, HyperLogLog> pending = new TreeMap<>(BucketKey.ORDER);
+        BucketKey[] current = new BucketKey[1];
+        sketchRepository.streamDistinctIps(granularity, from, to, rs -> {
+            BucketKey key = new BucketKey(granularity, rs.getTimestamp("bucket_start").toLocalDateTime(),
+                    rs.getInt("app_id"), rs.getInt("uri_id"));
+            if (!key.equals(current[0]) && pending.size() >= BACKFILL_BATCH) {
+                sketchRepository.merge(pending);
+                pending.clear();
+            }
+            current[0] = key;
+            pending.computeIfAbsent(key, k -> new HyperLogLog(precision)).add(rs.getString("ip"));
+        });
+        sketchRepository.merge(pending);
+    }
+}
@@ -1,7 +1,62 @@
+CREATE TABLE IF NOT EXISTS stats_app (
+    id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name varchar NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_stats_app_name ON stats_app (name) INCLUDE (id);
+
+CREATE TABLE IF NOT EXISTS stats_uri (
+    id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    uri varchar NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_stats_uri_uri ON stats_uri (uri) INCLUDE (id);
+
 CREATE TABLE IF NOT EXISTS statistics (
-    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    app varchar NOT NULL,
-    uri varchar NOT NULL,
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    app_id integer NOT NULL REFERENCES stats_app (id),
+    uri_id integer NOT NULL REFERENCES stats_uri (id),
     ip varchar NOT NULL,
-    call_time TIMESTAMP WITHOUT TIME ZONE NOT NULL
-);
\ No newline at end of file
+    call_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    PRIMARY KEY (id, call_time)
+) PARTITION BY RANGE (call_time);
+
+-- в таблице statistics прежней схемы app и uri хранились строками: колонки ключей добавляются пустыми,
+-- заполняет их StatisticsDimensionService при старте
+ALTER TABLE statistics ADD COLUMN IF NOT EXISTS app_id integer;
+
+ALTER TABLE statistics ADD COLUMN IF NOT EXISTS uri_id integer;
+
+CREATE INDEX IF NOT EXISTS ix_statistics_call_time ON statistics (call_time);
+
+CREATE INDEX IF NOT EXISTS ix_statistics_uri_id_call_time ON statistics (uri_id, call_time) INCLUDE (app_id);
+
+CREATE TABLE IF NOT EXISTS statistics_rollup (
+    granularity varchar(6) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id integer NOT NULL,
+    uri_id integer NOT NULL,
+    hits bigint NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_statistics_rollup_uri_id ON statistics_rollup (uri_id, granularity, bucket_start)
+    INCLUDE (app_id, hits);
+
+CREATE TABLE IF NOT EXISTS statistics_unique_sketch (
+    granularity varchar(6) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id integer NOT NULL,
+    uri_id integer NOT NULL,
+    sketch bytea NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_statistics_unique_sketch_uri_id ON statistics_unique_sketch (uri_id, granularity, bucket_start);
+
+-- секции, выгруженные в колоночный архив: горизонт архива общий для всех экземпляров stats-server
+CREATE TABLE IF NOT EXISTS statistics_archive (
+    partition_name varchar PRIMARY KEY,
+    range_from TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    range_to TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
@@ -0,0 +1,56 @@
+package ru.practicum;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Поднимает stats-server целиком на встроенном Postgres без config-server и eureka.
+ * База одна на все тестовые классы и живёт до конца JVM: каждый класс пишет хиты своего app.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.sql.init.mode=always",
+        "stats.unique.hll.enabled=true"})
+public abstract class EmbeddedPostgresTest {
+    private static EmbeddedPostgres postgres;
+    private static Path archiveDir;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        EmbeddedPostgres started = start();
+        registry.add("spring.datasource.url", () -> started.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("stats.archive.dir", () -> archiveDir.toString());
+    }
+
+    /**
+     * Общий экземпляр встроенного Postgres; запускается при первом обращении.
+     */
+    public static synchronized EmbeddedPostgres start() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+                archiveDir = Files.createTempDirectory("stats-archive");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // процесс всё равно завершается
+                }
+            }));
+        }
+        return postgres;
+    }
+}
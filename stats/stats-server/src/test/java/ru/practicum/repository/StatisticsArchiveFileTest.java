@@ -0,0 +1,157 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.service.AppUri;
+import ru.practicum.service.HyperLogLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatisticsArchiveFileTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 8, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 9, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        Path path = write(
+                hit("ewm", "/events/1", "10.0.0.1", FROM),
+                hit("ewm", "/events/2", "10.0.0.2", FROM.plusSeconds(5)),
+                hit("ewm", "/events/1", "10.0.0.1", FROM.plusDays(3)),
+                hit("main", "/events/1", "10.0.0.3", TO.minusSeconds(1)));
+
+        StatisticsArchiveFile file = StatisticsArchiveFile.read(path);
+
+        assertThat(file.getFrom()).isEqualTo(FROM);
+        assertThat(file.getTo()).isEqualTo(TO);
+        assertThat(file.getRows()).isEqualTo(4);
+        assertThat(visit(file, FROM, TO, false, null)).containsExactly(
+                "ewm /events/1 10.0.0.1", "ewm /events/2 10.0.0.2", "ewm /events/1 10.0.0.1",
+                "main /events/1 10.0.0.3");
+        assertThat(StatisticsArchiveFile.readInterval(path)).containsExactly(FROM, TO);
+    }
+
+    @Test
+    void forEachHitHonoursIntervalBoundsAndUriFilter() throws IOException {
+        StatisticsArchiveFile file = StatisticsArchiveFile.read(write(
+                hit("ewm", "/events/1", "10.0.0.1", FROM.plusHours(1)),
+                hit("ewm", "/events/2", "10.0.0.2", FROM.plusHours(2)),
+                hit("ewm", "/events/2", "10.0.0.3", FROM.plusHours(2)),
+                hit("ewm", "/events/1", "10.0.0.4", FROM.plusHours(3))));
+
+        assertThat(visit(file, FROM.plusHours(2), FROM.plusHours(3), false, null))
+                .containsExactly("ewm /events/2 10.0.0.2", "ewm /events/2 10.0.0.3");
+        assertThat(visit(file, FROM.plusHours(2), FROM.plusHours(3), true, null)).hasSize(3);
+        assertThat(visit(file, FROM, FROM.plusHours(1), false, null)).isEmpty();
+        assertThat(visit(file, FROM, TO, false, List.of("/events/1")))
+                .containsExactly("ewm /events/1 10.0.0.1", "ewm /events/1 10.0.0.4");
+        assertThat(visit(file, FROM, TO, false, List.of("/events/404"))).isEmpty();
+        assertThat(visit(file, FROM.minusDays(1), TO.plusDays(1), false, null)).hasSize(4);
+    }
+
+    @Test
+    void emptyPartitionRoundTrip() throws IOException {
+        StatisticsArchiveFile file = StatisticsArchiveFile.read(write());
+
+        assertThat(file.getRows()).isZero();
+        assertThat(visit(file, FROM, TO, true, null)).isEmpty();
+    }
+
+    @Test
+    void corruptedContentFailsChecksum() throws IOException {
+        Path path = write(hit("ewm", "/events/1", "10.0.0.1", FROM.plusSeconds(1)));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> StatisticsArchiveFile.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("контрольная сумма");
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path path = write(hit("ewm", "/events/1", "10.0.0.1", FROM.plusSeconds(1)));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> StatisticsArchiveFile.read(path)).isInstanceOf(IOException.class);
+        Files.write(path, new byte[10]);
+        assertThatThrownBy(() -> StatisticsArchiveFile.read(path)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> StatisticsArchiveFile.readInterval(path)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void writerRejectsHitsOutsidePartitionOrOutOfOrder() {
+        StatisticsArchiveFile.Writer writer = new StatisticsArchiveFile.Writer(FROM, TO);
+        writer.add("ewm", "/events/1", "10.0.0.1", FROM.plusHours(1));
+
+        assertThatThrownBy(() -> writer.add("ewm", "/events/1", "10.0.0.1", TO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> writer.add("ewm", "/events/1", "10.0.0.1", FROM.minusSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> writer.add("ewm", "/events/1", "10.0.0.1", FROM))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sketchesRoundTripAndMatchArchivedHits() throws IOException {
+        Path path = write(
+                hit("ewm", "/events/1", "10.0.0.1", FROM.plusSeconds(1)),
+                hit("ewm", "/events/1", "10.0.0.2", FROM.plusSeconds(2)),
+                hit("ewm", "/events/1", "10.0.0.1", FROM.plusSeconds(3)),
+                hit("ewm", "/events/2", "10.0.0.1", FROM.plusSeconds(4)));
+        Map<AppUri, HyperLogLog> built = StatisticsArchiveSketches.build(StatisticsArchiveFile.read(path), 12);
+        Path sketchPath = StatisticsArchiveSketches.pathFor(path);
+
+        StatisticsArchiveSketches.write(sketchPath, built);
+        Map<AppUri, HyperLogLog> restored = StatisticsArchiveSketches.read(sketchPath);
+
+        assertThat(sketchPath.getFileName().toString()).isEqualTo("partition.hll");
+        assertThat(restored).containsOnlyKeys(new AppUri("ewm", "/events/1"), new AppUri("ewm", "/events/2"));
+        assertThat(restored.get(new AppUri("ewm", "/events/1")).estimate()).isEqualTo(2);
+        assertThat(restored.get(new AppUri("ewm", "/events/2")).estimate()).isEqualTo(1);
+
+        byte[] bytes = Files.readAllBytes(sketchPath);
+        bytes[bytes.length - 5] ^= 0x01;
+        Files.write(sketchPath, bytes);
+        assertThatThrownBy(() -> StatisticsArchiveSketches.read(sketchPath)).isInstanceOf(IOException.class);
+    }
+
+    private Path write(Hit... hits) throws IOException {
+        StatisticsArchiveFile.Writer writer = new StatisticsArchiveFile.Writer(FROM, TO);
+        for (Hit hit : hits) {
+            writer.add(hit.app(), hit.uri(), hit.ip(), hit.time());
+        }
+        Path path = directory.resolve("partition" + StatisticsArchiveFile.EXTENSION);
+        writer.write(path);
+        return path;
+    }
+
+    private static List<String> visit(StatisticsArchiveFile file, LocalDateTime start, LocalDateTime end,
+                                      boolean endInclusive, List<String> uris) {
+        List<String> rows = new ArrayList<>();
+        file.forEachHit(start, end, endInclusive, uris,
+                (app, uri, ip) -> rows.add(file.app(app) + " " + file.uri(uri) + " " + file.ip(ip)));
+        return rows;
+    }
+
+    private static Hit hit(String app, String uri, String ip, LocalDateTime time) {
+        return new Hit(app, uri, ip, time);
+    }
+
+    private record Hit(String app, String uri, String ip, LocalDateTime time) {
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.dto.StatisticsGetResponseDto;
+import ru.practicum.service.StatService;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Старт на базе со схемой baseline: несекционированная statistics со строковыми app и uri.
+ * Отдельная база в общем экземпляре Postgres, чтобы не задеть схему остальных тестов.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.sql.init.mode=always"})
+class StatisticsLegacyMigrationTest {
+    private static final String DATABASE = "legacy_stats";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StatService statService;
+
+    @DynamicPropertySource
+    static void legacyDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        EmbeddedPostgres postgres = EmbeddedPostgresTest.start();
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + DATABASE);
+            statement.execute("CREATE DATABASE " + DATABASE);
+        }
+        try (Connection connection = postgres.getDatabase("postgres", DATABASE).getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE statistics (
+                        id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                        app varchar NOT NULL,
+                        uri varchar NOT NULL,
+                        ip varchar NOT NULL,
+                        call_time TIMESTAMP WITHOUT TIME ZONE NOT NULL
+                    );
+                    INSERT INTO statistics (app, uri, ip, call_time) VALUES
+                        ('ewm-main-service', '/events/1', '10.0.0.1', '2025-11-03 10:15:00'),
+                        ('ewm-main-service', '/events/1', '10.0.0.2', '2025-12-24 18:40:00'),
+                        ('ewm-main-service', '/events/2', '10.0.0.1', '2026-01-02 08:00:00');
+                    """);
+        }
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", DATABASE));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @Test
+    void baselineTableIsMovedIntoIndexedPartitions() {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'statistics'::regclass)",
+                Boolean.class)).isTrue();
+        assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE tablename = 'statistics'",
+                String.class)).contains("ix_statistics_call_time", "ix_statistics_uri_id_call_time");
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('statistics_legacy') IS NULL", Boolean.class))
+                .isTrue();
+
+        List<StatisticsGetResponseDto> stats = statService.getStats(LocalDateTime.of(2025, 1, 1, 0, 0),
+                LocalDateTime.of(2026, 6, 1, 0, 0), null, false, false, null);
+
+        assertThat(stats)
+                .extracting(StatisticsGetResponseDto::getUri, StatisticsGetResponseDto::getHits)
+                .containsExactly(tuple("/events/1", 2L), tuple("/events/2", 1L));
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import ru.practicum.exceptions.IngestOverloadException;
+import ru.practicum.model.Statistics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class HitIngestQueueTest {
+    private final HitRecorder hitRecorder = mock(HitRecorder.class);
+    private final Queue<Statistics> recorded = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void failedBatchIsRetriedUntilWritten() {
+        AtomicInteger failures = new AtomicInteger(2);
+        doAnswer(invocation -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new DataAccessResourceFailureException("база недоступна");
+            }
+            recorded.addAll(invocation.getArgument(0));
+            return null;
+        }).when(hitRecorder).record(anyList());
+        HitIngestQueue queue = queue(3);
+        queue.start();
+
+        queue.offer(hit(1));
+        queue.offer(hit(2));
+        queue.stop();
+
+        verify(hitRecorder, times(3)).record(anyList());
+        assertThat(recorded).hasSize(2);
+    }
+
+    @Test
+    void batchIsDroppedAfterBoundedRetries() {
+        doThrow(new DataAccessResourceFailureException("база недоступна")).when(hitRecorder).record(anyList());
+        HitIngestQueue queue = queue(2);
+        queue.start();
+
+        queue.offer(hit(1));
+        queue.stop();
+
+        verify(hitRecorder, times(3)).record(anyList());
+    }
+
+    @Test
+    void everyAcceptedHitIsWrittenWhenStoppedDuringOffers() throws InterruptedException {
+        doAnswer(invocation -> recorded.addAll(invocation.getArgument(0))).when(hitRecorder).record(anyList());
+        HitIngestQueue queue = queue(0);
+        queue.start();
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 20_000; i++) {
+                    try {
+                        queue.offer(hit(i));
+                        accepted.incrementAndGet();
+                    } catch (IngestOverloadException e) {
+                        /* отказ вызывающему: хит не принят */
+                    }
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        started.await();
+        queue.stop();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertThat(recorded).hasSize(accepted.get());
+    }
+
+    private HitIngestQueue queue(int flushRetries) {
+        return new HitIngestQueue(hitRecorder, true, 1_000, 50, 5, 1, flushRetries, 10);
+    }
+
+    private static Statistics hit(int id) {
+        return Statistics.builder().app("ingest-test").uri("/ingest-test/" + id).ip("10.0.0.1")
+                .timestamp(LocalDateTime.now()).build();
+    }
+}
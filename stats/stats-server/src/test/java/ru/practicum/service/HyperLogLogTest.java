@@ -0,0 +1,157 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000, 1_000_000})
+    void estimateStaysWithinThreeStandardErrors(int cardinality) {
+        HyperLogLog sketch = sketch(12, 0, cardinality);
+
+        double standardError = 1.04 / Math.sqrt(1 << 12);
+        assertThat((double) sketch.estimate()).isCloseTo(cardinality, within(3 * standardError * cardinality));
+    }
+
+    @Test
+    void smallCardinalityIsNearlyExact() {
+        assertThat(new HyperLogLog(12).estimate()).isZero();
+        assertThat(sketch(12, 0, 100).estimate()).isCloseTo(100L, within(2L));
+    }
+
+    @Test
+    void repeatedValuesAreCountedOnce() {
+        HyperLogLog sketch = sketch(12, 0, 1_000);
+        long estimate = sketch.estimate();
+
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add(ip(i));
+        }
+
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        HyperLogLog left = sketch(12, 0, 60_000);
+        HyperLogLog right = sketch(12, 40_000, 100_000);
+
+        HyperLogLog merged = left.merge(right);
+
+        assertThat(merged.toBytes()).isEqualTo(sketch(12, 0, 100_000).toBytes());
+    }
+
+    @Test
+    void mergeIsIdempotent() {
+        HyperLogLog sketch = sketch(12, 0, 10_000);
+        byte[] before = sketch.toBytes();
+
+        sketch.merge(sketch(12, 0, 10_000));
+
+        assertThat(sketch.toBytes()).isEqualTo(before);
+    }
+
+    @Test
+    void mergeOfDifferentPrecisionsDropsToLowerAndKeepsOperandsIntact() {
+        HyperLogLog precise = sketch(14, 0, 50_000);
+        HyperLogLog coarse = sketch(10, 50_000, 100_000);
+        byte[] preciseBefore = precise.toBytes();
+        byte[] coarseBefore = coarse.toBytes();
+
+        HyperLogLog merged = precise.merge(coarse);
+
+        assertThat(merged.getPrecision()).isEqualTo(10);
+        assertThat(merged.toBytes()).isEqualTo(sketch(10, 0, 100_000).toBytes());
+        assertThat(precise.toBytes()).isEqualTo(preciseBefore);
+        assertThat(coarse.toBytes()).isEqualTo(coarseBefore);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 8, 11, 12})
+    void withPrecisionMatchesSketchBuiltAtLowerPrecision(int precision) {
+        HyperLogLog folded = sketch(12, 0, 30_000).withPrecision(precision);
+
+        assertThat(folded.getPrecision()).isEqualTo(precision);
+        assertThat(folded.toBytes()).isEqualTo(sketch(precision, 0, 30_000).toBytes());
+    }
+
+    @Test
+    void withPrecisionCannotRaisePrecision() {
+        assertThatThrownBy(() -> new HyperLogLog(10).withPrecision(12))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        HyperLogLog sketch = sketch(12, 0, 5_000);
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(restored.getPrecision()).isEqualTo(12);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void fewVisitorsAreStoredSparse() {
+        HyperLogLog sketch = sketch(12, 0, 3);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes).hasSize(1 + 3 * 3);
+        assertThat(HyperLogLog.fromBytes(bytes).toBytes()).isEqualTo(bytes);
+        assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(3);
+    }
+
+    @Test
+    void sparseSketchRestoresSameRegistersAsDense() {
+        HyperLogLog sparse = HyperLogLog.fromBytes(sketch(12, 0, 500).toBytes());
+        HyperLogLog dense = sketch(12, 0, 100_000);
+
+        assertThat(sketch(12, 0, 500).toBytes().length).isLessThan(1 << 12);
+        assertThat(dense.toBytes()).hasSize((1 << 12) + 1);
+        assertThat(sparse.merge(dense).toBytes()).isEqualTo(sketch(12, 0, 100_000).toBytes());
+    }
+
+    @Test
+    void rejectsCorruptedSparseBytes() {
+        byte sparse12 = (byte) (0x80 | 12);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{sparse12, 0, 1}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{sparse12, 0, 5, 1, 0, 5, 1}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{sparse12, 0x10, 0, 1}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{sparse12, 0, 1, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsInvalidPrecisionAndCorruptedBytes() {
+        assertThatThrownBy(() -> new HyperLogLog(HyperLogLog.MIN_PRECISION - 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HyperLogLog(HyperLogLog.MAX_PRECISION + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{12, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HyperLogLog sketch(int precision, int from, int to) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        for (int i = from; i < to; i++) {
+            sketch.add(ip(i));
+        }
+        return sketch;
+    }
+
+    private static String ip(int i) {
+        return "10." + ((i >>> 16) & 0xff) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff) + "/" + (i >>> 24);
+    }
+}
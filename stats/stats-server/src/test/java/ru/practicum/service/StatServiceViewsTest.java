@@ -0,0 +1,67 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.dto.ViewsRequestDto;
+import ru.practicum.model.Statistics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatServiceViewsTest extends EmbeddedPostgresTest {
+    private static final String APP = "views-test";
+    private static final List<TimeGranularity> LEVELS =
+            List.of(TimeGranularity.MINUTE, TimeGranularity.HOUR, TimeGranularity.DAY);
+    /* все сырые края и все уровни бакетов: срезов семь, URI одного чанка больше, чем 65535 / 7 */
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 10, 30, 15);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 5, 14, 45, 40);
+    private static final int IDS = 10_000;
+
+    @Autowired
+    private StatService statService;
+    @Autowired
+    private HitRecorder hitRecorder;
+
+    @Test
+    void viewsForMoreUrisThanParameterLimitAllowsPerSlice() {
+        assertThat((long) TimeSlicePlanner.plan(START, END, LEVELS).size() * IDS).isGreaterThan(65_535);
+        long span = Duration.between(START, END).toSeconds();
+        List<Statistics> hits = new ArrayList<>();
+        for (long id = 1; id <= IDS; id++) {
+            LocalDateTime time = START.plusSeconds(id * span / (IDS + 1));
+            hits.add(hit(id, "10.0.0.1", time));
+            hits.add(hit(id, "10.0.0.1", time));
+            hits.add(hit(id, "10.0.0.2", time));
+        }
+        hitRecorder.record(hits);
+        List<Long> ids = LongStream.rangeClosed(1, IDS).boxed().toList();
+
+        Map<Long, Long> views = statService.getViews(request(ids, false));
+        Map<Long, Long> uniqueViews = statService.getViews(request(ids, true));
+
+        assertThat(views).hasSize(IDS).allSatisfy((id, count) -> assertThat(count).isEqualTo(3L));
+        assertThat(uniqueViews).hasSize(IDS).allSatisfy((id, count) -> assertThat(count).isEqualTo(2L));
+    }
+
+    private static Statistics hit(long id, String ip, LocalDateTime time) {
+        return Statistics.builder().app(APP).uri("/views-test/" + id).ip(ip).timestamp(time).build();
+    }
+
+    private static ViewsRequestDto request(List<Long> ids, boolean unique) {
+        return ViewsRequestDto.builder()
+                .ids(ids)
+                .uriPrefix("/views-test/")
+                .app(APP)
+                .start("2026-01-01 10:30:15")
+                .end("2026-01-05 14:45:40")
+                .unique(unique)
+                .build();
+    }
+}
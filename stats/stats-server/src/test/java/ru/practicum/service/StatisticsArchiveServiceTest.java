@@ -0,0 +1,121 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.dto.StatisticsGetResponseDto;
+import ru.practicum.model.Statistics;
+import ru.practicum.repository.StatisticsArchiveRepository;
+import ru.practicum.repository.StatisticsPartitionRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@TestPropertySource(properties = {
+        "stats.partition.interval=DAY",
+        "stats.partition.retention=2",
+        "stats.partition.expired-action=ARCHIVE",
+        "stats.archive.exact-unique-max-ips=3"})
+class StatisticsArchiveServiceTest extends EmbeddedPostgresTest {
+    private static final String APP = "archive-test";
+
+    @Autowired
+    private StatisticsPartitionManager partitionManager;
+    @Autowired
+    private StatisticsPartitionRepository partitionRepository;
+    @Autowired
+    private StatisticsArchiveService archiveService;
+    @Autowired
+    private StatisticsArchiveRepository archiveRepository;
+    @Autowired
+    private HitRecorder hitRecorder;
+    @Autowired
+    private StatService statService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Value("${stats.archive.dir}")
+    private Path archiveDir;
+
+    /* горизонт архива общий для базы: остальные тесты не должны уходить в архив */
+    @AfterEach
+    void clearArchive() throws IOException {
+        jdbcTemplate.update("DELETE FROM statistics_archive");
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        archiveService.refresh();
+    }
+
+    @Test
+    void exportIsVisibleToInstanceThatDidNotMakeIt() {
+        List<String> uris = List.of("/archive-test/1", "/archive-test/2");
+        StatisticsArchiveService otherInstance =
+                new StatisticsArchiveService(archiveRepository, archiveDir, DataSize.ofMegabytes(1), 12);
+        otherInstance.refresh();
+        LocalDateTime expiredDay = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(5);
+        recordExpiredAndRecentHits(expiredDay, uris);
+
+        partitionManager.scheduledMaintenance();
+
+        LocalDateTime horizon = otherInstance.horizon();
+        assertThat(horizon).isAfter(expiredDay);
+        assertThat(otherInstance.countHits(expiredDay, horizon, false, uris))
+                .containsOnly(Map.entry(new AppUri(APP, uris.get(0)), 3L), Map.entry(new AppUri(APP, uris.get(1)), 1L));
+    }
+
+    @Test
+    void exactUniquesOverIpLimitFallBackToSketches() {
+        List<String> uris = List.of("/archive-test/3", "/archive-test/4");
+        LocalDateTime expiredDay = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(6);
+        recordExpiredAndRecentHits(expiredDay, uris);
+
+        partitionManager.scheduledMaintenance();
+
+        LocalDateTime start = expiredDay.minusHours(1);
+        LocalDateTime end = LocalDateTime.now();
+        StatisticsArchiveService otherInstance =
+                new StatisticsArchiveService(archiveRepository, archiveDir, DataSize.ofMegabytes(1), 12);
+        otherInstance.refresh();
+        assertThat(otherInstance.findIps(start, otherInstance.horizon(), false, uris, 3)).isNull();
+        assertThat(statService.getStats(start, end, uris, true, true, null))
+                .extracting(StatisticsGetResponseDto::getUri, StatisticsGetResponseDto::getHits)
+                .containsExactly(tuple(uris.get(0), 4L), tuple(uris.get(1), 1L));
+        assertThat(statService.getStats(start, end, List.of(uris.get(1)), true, true, null))
+                .extracting(StatisticsGetResponseDto::getUri, StatisticsGetResponseDto::getHits)
+                .containsExactly(tuple(uris.get(1), 1L));
+    }
+
+    private void recordExpiredAndRecentHits(LocalDateTime expiredDay, List<String> uris) {
+        partitionRepository.createPartition(StatisticsPartitionRepository.PARTITION_PREFIX
+                + PartitionInterval.DAY.suffix(expiredDay), expiredDay, expiredDay.plusDays(1));
+        LocalDateTime expired = expiredDay.plusHours(10);
+        LocalDateTime recent = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.SECONDS);
+        hitRecorder.record(List.of(
+                hit(uris.get(0), "10.0.0.1", expired),
+                hit(uris.get(0), "10.0.0.2", expired),
+                hit(uris.get(0), "10.0.0.3", expired),
+                hit(uris.get(1), "10.0.0.4", expired),
+                hit(uris.get(0), "10.0.0.1", recent),
+                hit(uris.get(0), "10.0.0.5", recent)));
+    }
+
+    private static Statistics hit(String uri, String ip, LocalDateTime time) {
+        return Statistics.builder().app(APP).uri(uri).ip(ip).timestamp(time).build();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.dto.StatisticsGetResponseDto;
+import ru.practicum.model.Statistics;
+import ru.practicum.repository.StatisticsPartitionRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@TestPropertySource(properties = {
+        "stats.partition.interval=DAY",
+        "stats.partition.retention=2",
+        "stats.partition.expired-action=DROP"})
+class StatisticsPartitionManagerTest extends EmbeddedPostgresTest {
+    private static final String APP = "expiry-test";
+    private static final List<String> URIS = List.of("/expiry-test/1", "/expiry-test/2");
+
+    @Autowired
+    private StatisticsPartitionManager partitionManager;
+    @Autowired
+    private StatisticsPartitionRepository partitionRepository;
+    @Autowired
+    private HitRecorder hitRecorder;
+    @Autowired
+    private StatService statService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void expiredHitsDisappearFromEveryCountingPath() {
+        LocalDateTime today = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime expiredDay = today.minusDays(5);
+        partitionRepository.createPartition(StatisticsPartitionRepository.PARTITION_PREFIX
+                + PartitionInterval.DAY.suffix(expiredDay), expiredDay, expiredDay.plusDays(1));
+        LocalDateTime expired = expiredDay.plusHours(10).plusMinutes(17);
+        LocalDateTime recent = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.SECONDS);
+        hitRecorder.record(List.of(
+                hit(URIS.get(0), "10.0.0.1", expired),
+                hit(URIS.get(0), "10.0.0.2", expired),
+                hit(URIS.get(1), "10.0.0.3", expired),
+                hit(URIS.get(0), "10.0.0.1", recent),
+                hit(URIS.get(0), "10.0.0.1", recent)));
+
+        partitionManager.scheduledMaintenance();
+
+        LocalDateTime start = expiredDay.minusDays(1).plusSeconds(30);
+        LocalDateTime end = LocalDateTime.now();
+        assertThat(statService.getStats(start, end, URIS, false, false, null))
+                .extracting(StatisticsGetResponseDto::getUri, StatisticsGetResponseDto::getHits)
+                .containsExactly(tuple(URIS.get(0), 2L));
+        assertThat(statService.getStats(start, end, URIS, true, true, null))
+                .extracting(StatisticsGetResponseDto::getUri, StatisticsGetResponseDto::getHits)
+                .containsExactly(tuple(URIS.get(0), 1L));
+        assertThat(statService.getStats(start, end, URIS, true, false, null))
+                .extracting(StatisticsGetResponseDto::getUri, StatisticsGetResponseDto::getHits)
+                .containsExactly(tuple(URIS.get(0), 1L));
+        Timestamp cutoff = Timestamp.valueOf(today.minusDays(2));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM statistics_rollup WHERE bucket_start < ?",
+                Long.class, cutoff)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM statistics_unique_sketch WHERE bucket_start < ?",
+                Long.class, cutoff)).isZero();
+    }
+
+    private static Statistics hit(String uri, String ip, LocalDateTime time) {
+        return Statistics.builder().app(APP).uri(uri).ip(ip).timestamp(time).build();
+    }
+}
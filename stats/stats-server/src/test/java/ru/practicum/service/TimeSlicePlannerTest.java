@@ -0,0 +1,103 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeSlicePlannerTest {
+    private static final List<TimeGranularity> LEVELS =
+            List.of(TimeGranularity.MINUTE, TimeGranularity.HOUR, TimeGranularity.DAY);
+
+    @Test
+    void intervalInsideOneMinuteIsSingleRawSlice() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0, 30);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 1, 10, 0, 50);
+
+        assertThat(TimeSlicePlanner.plan(start, end, LEVELS))
+                .containsExactly(TimeSlice.raw(start, end, true));
+    }
+
+    @Test
+    void intervalWithinOneMinuteBoundaryIsSingleRawSlice() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0, 30);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 1, 10, 1, 20);
+
+        assertThat(TimeSlicePlanner.plan(start, end, LEVELS))
+                .containsExactly(TimeSlice.raw(start, end, true));
+    }
+
+    @Test
+    void alignedDaysAreCoveredByDayBucketsAndEmptyInclusiveTail() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 3, 0, 0);
+
+        assertThat(TimeSlicePlanner.plan(start, end, LEVELS)).containsExactly(
+                TimeSlice.buckets(TimeGranularity.DAY, start, end),
+                TimeSlice.raw(end, end, true));
+    }
+
+    @Test
+    void unalignedEdgesUseFinerBucketsAndRawTails() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 15, 30);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 3, 12, 30, 45);
+
+        assertThat(TimeSlicePlanner.plan(start, end, LEVELS)).containsExactly(
+                TimeSlice.raw(start, LocalDateTime.of(2026, 1, 1, 10, 16), false),
+                TimeSlice.buckets(TimeGranularity.MINUTE, LocalDateTime.of(2026, 1, 1, 10, 16),
+                        LocalDateTime.of(2026, 1, 1, 11, 0)),
+                TimeSlice.buckets(TimeGranularity.HOUR, LocalDateTime.of(2026, 1, 1, 11, 0),
+                        LocalDateTime.of(2026, 1, 2, 0, 0)),
+                TimeSlice.buckets(TimeGranularity.DAY, LocalDateTime.of(2026, 1, 2, 0, 0),
+                        LocalDateTime.of(2026, 1, 3, 0, 0)),
+                TimeSlice.buckets(TimeGranularity.HOUR, LocalDateTime.of(2026, 1, 3, 0, 0),
+                        LocalDateTime.of(2026, 1, 3, 12, 0)),
+                TimeSlice.buckets(TimeGranularity.MINUTE, LocalDateTime.of(2026, 1, 3, 12, 0),
+                        LocalDateTime.of(2026, 1, 3, 12, 30)),
+                TimeSlice.raw(LocalDateTime.of(2026, 1, 3, 12, 30), end, true));
+    }
+
+    @Test
+    void coarserLevelIsSkippedWhenItHasNoWholeBucket() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 22, 10);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 2, 1, 5);
+
+        assertThat(TimeSlicePlanner.plan(start, end, LEVELS)).containsExactly(
+                TimeSlice.buckets(TimeGranularity.MINUTE, start, LocalDateTime.of(2026, 1, 1, 23, 0)),
+                TimeSlice.buckets(TimeGranularity.HOUR, LocalDateTime.of(2026, 1, 1, 23, 0),
+                        LocalDateTime.of(2026, 1, 2, 1, 0)),
+                TimeSlice.buckets(TimeGranularity.MINUTE, LocalDateTime.of(2026, 1, 2, 1, 0), end),
+                TimeSlice.raw(end, end, true));
+    }
+
+    @Test
+    void slicesAreContiguousAlignedAndCoverWholeInterval() {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        for (int i = 0; i < 1_000; i++) {
+            LocalDateTime start = base.plusSeconds(random.nextInt(10 * 24 * 3600));
+            LocalDateTime end = start.plusSeconds(random.nextInt(5 * 24 * 3600));
+
+            List<TimeSlice> slices = TimeSlicePlanner.plan(start, end, LEVELS);
+
+            assertThat(slices.getFirst().from()).isEqualTo(start);
+            assertThat(slices.getLast().to()).isEqualTo(end);
+            assertThat(slices.getLast().toInclusive()).isTrue();
+            for (int j = 0; j < slices.size(); j++) {
+                TimeSlice slice = slices.get(j);
+                assertThat(slice.from()).isBeforeOrEqualTo(slice.to());
+                if (j > 0) {
+                    assertThat(slice.from()).isEqualTo(slices.get(j - 1).to());
+                }
+                if (!slice.isRaw()) {
+                    assertThat(slice.granularity().floor(slice.from())).isEqualTo(slice.from());
+                    assertThat(slice.granularity().floor(slice.to())).isEqualTo(slice.to());
+                    assertThat(slice.toInclusive()).isFalse();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.dto.StatisticsGetResponseDto;
+import ru.practicum.model.Statistics;
+import ru.practicum.repository.StatisticsBatchRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class UniqueSketchServiceTest extends EmbeddedPostgresTest {
+    private static final String APP = "backfill-test";
+    private static final List<String> URIS = List.of("/backfill-test/1", "/backfill-test/2", "/backfill-test/3");
+
+    @Autowired
+    private UniqueSketchService uniqueSketchService;
+    @Autowired
+    private StatisticsDimensionService dimensionService;
+    @Autowired
+    private StatisticsBatchRepository batchRepository;
+    @Autowired
+    private StatService statService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void backfillBuildsCompactSketchesForHitsRecordedWithoutThem() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(3);
+        List<Statistics> hits = new ArrayList<>();
+        for (int hour = 0; hour < 72; hour += 5) {
+            for (int uri = 0; uri < URIS.size(); uri++) {
+                for (int visitor = 0; visitor <= uri * 40; visitor++) {
+                    hits.add(Statistics.builder().app(APP).uri(URIS.get(uri)).ip("10.0." + uri + "." + visitor)
+                            .timestamp(start.plusHours(hour).plusMinutes(visitor % 60)).build());
+                }
+            }
+        }
+        batchRepository.saveAll(dimensionService.resolve(hits));
+        jdbcTemplate.update("DELETE FROM statistics_unique_sketch");
+
+        uniqueSketchService.backfill();
+
+        LocalDateTime end = LocalDateTime.now();
+        List<StatisticsGetResponseDto> exact = statService.getStats(start, end, URIS, true, true, null);
+        List<StatisticsGetResponseDto> approximate = statService.getStats(start, end, URIS, true, false, null);
+        assertThat(exact).extracting(StatisticsGetResponseDto::getHits).containsExactly(81L, 41L, 1L);
+        Map<String, Long> estimates = approximate.stream()
+                .collect(Collectors.toMap(StatisticsGetResponseDto::getUri, StatisticsGetResponseDto::getHits));
+        assertThat(estimates).containsOnlyKeys(URIS);
+        for (StatisticsGetResponseDto row : exact) {
+            assertThat(estimates.get(row.getUri())).isCloseTo(row.getHits(), withinPercentage(5));
+        }
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT max(octet_length(k.sketch)) FROM statistics_unique_sketch k
+                JOIN stats_uri u ON u.id = k.uri_id WHERE u.uri = ?
+                """, Integer.class, URIS.get(0))).isLessThan(16);
+    }
+}